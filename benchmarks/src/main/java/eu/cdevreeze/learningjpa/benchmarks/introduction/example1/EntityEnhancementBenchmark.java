@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.benchmarks.introduction.example1;
+
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesEntityManagerFactoryCreator;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesPersistenceProfile;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * JMH benchmarks of the costs affected by build-time bytecode enhancement of the entities, namely bootstrapping
+ * the EntityManagerFactory and flushing (and therefore dirty checking) a persistence context full of quotes.
+ * <p>
+ * The benchmarks measure whatever entity classes are on the class path, so they must be run twice to compare:
+ * once after a normal build, and once after building with "mvn -P no-enhancement package", which leaves
+ * the entities unenhanced. Whether the entities are enhanced is printed at the start of each trial.
+ * <p>
+ * The flush benchmarks load all quotes into the persistence context, change the text of "modifiedQuoteCount"
+ * of them, and flush. The transaction is rolled back, so the database is not affected. Benchmark "loadQuotes"
+ * does the same without modifying and flushing, as baseline. Without enhancement, each flush compares the
+ * state of each loaded quote with its snapshot. With enhancement, the quotes track their own changes.
+ *
+ * @author Chris de Vreeze
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityEnhancementBenchmark {
+
+    @Param({"10"})
+    public int modifiedQuoteCount;
+
+    @Setup(Level.Trial)
+    public void printEnhancement() {
+        System.out.printf("Entities are bytecode-enhanced: %b%n", ManagedEntity.class.isAssignableFrom(Quote.class));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = 1)
+    @Measurement(iterations = 20, batchSize = 1)
+    public void bootstrapEntityManagerFactory() {
+        EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(
+                QuotesPersistenceProfile.fromSystemProperty(QuotesPersistenceProfile.BENCH),
+                QuotesPersistenceProfile.withoutSqlLogging());
+        emf.close();
+    }
+
+    @Benchmark
+    public int loadQuotes(QuotesDatabase db) {
+        return callInRolledBackTransaction(db.getEntityManagerFactory(), em -> loadAllQuotes(em).size());
+    }
+
+    @Benchmark
+    public int flushModifiedQuotes(QuotesDatabase db) {
+        return callInRolledBackTransaction(db.getEntityManagerFactory(), em -> {
+            List<Quote> quotes = loadAllQuotes(em);
+            for (Quote quote : quotes.subList(0, Math.min(modifiedQuoteCount, quotes.size()))) {
+                quote.setQuoteText(quote.getQuoteText() + " (modified)");
+            }
+            em.flush();
+            return quotes.size();
+        });
+    }
+
+    @Benchmark
+    public int flushUnmodifiedQuotes(QuotesDatabase db) {
+        return callInRolledBackTransaction(db.getEntityManagerFactory(), em -> {
+            List<Quote> quotes = loadAllQuotes(em);
+            em.flush();
+            return quotes.size();
+        });
+    }
+
+    private static List<Quote> loadAllQuotes(EntityManager em) {
+        return em.createQuery("select qt from Quote qt join fetch qt.attributedTo left join fetch qt.subjects", Quote.class)
+                .getResultList();
+    }
+
+    private static <R> R callInRolledBackTransaction(EntityManagerFactory emf, Function<EntityManager, R> work) {
+        try (EntityManager em = emf.createEntityManager()) {
+            em.getTransaction().begin();
+            try {
+                return work.apply(em);
+            } finally {
+                em.getTransaction().rollback();
+            }
+        }
+    }
+}
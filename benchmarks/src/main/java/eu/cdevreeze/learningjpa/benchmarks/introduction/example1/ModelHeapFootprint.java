@@ -0,0 +1,100 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.benchmarks.introduction.example1;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Program measuring the retained heap of a large converted query result (of Model.Quote records), once converted
+ * with {@link Quote#toModel()} and once converted with a {@link ModelConversionContext}. Besides the (approximate)
+ * retained heap, measured as the growth of the used heap after garbage collection, the (exact) numbers of distinct
+ * author, subject and subject set instances are reported.
+ * <p>
+ * The optional program argument is the number of quotes (default 100000). Give the JVM enough heap for large numbers.
+ *
+ * @author Chris de Vreeze
+ */
+public class ModelHeapFootprint {
+
+    public static void main(String[] args) throws InterruptedException {
+        int quoteCount = (args.length == 0) ? 100_000 : Integer.parseInt(args[0]);
+        Preconditions.checkArgument(quoteCount > 0);
+
+        QuotesDatabase db = new QuotesDatabase();
+        db.quoteCount = quoteCount;
+        db.setUp();
+        try {
+            List<Quote> quoteEntities = db.getEntityManagerFactory().callInTransaction(em ->
+                    em.createQuery("select qt from Quote qt join fetch qt.attributedTo left join fetch qt.subjects", Quote.class)
+                            .getResultList());
+
+            System.out.println();
+            System.out.printf("Number of quotes: %d%n", quoteEntities.size());
+            measure("Without conversion context", quoteEntities, Quote::toModel);
+            ModelConversionContext conversionContext = new ModelConversionContext();
+            measure("With conversion context", quoteEntities, conversionContext::toModel);
+        } finally {
+            db.tearDown();
+        }
+    }
+
+    private static void measure(String description, List<Quote> quoteEntities, Function<Quote, Model.Quote> converter)
+            throws InterruptedException {
+        long usedHeapBefore = usedHeapAfterGc();
+        ImmutableList<Model.Quote> quotes = quoteEntities.stream().map(converter).collect(ImmutableList.toImmutableList());
+        long usedHeapAfter = usedHeapAfterGc();
+
+        System.out.printf(
+                "%s: retained heap approx. %.1f MB; distinct instances: %d authors, %d subjects, %d subject sets%n",
+                description,
+                (usedHeapAfter - usedHeapBefore) / (1024.0 * 1024.0),
+                countDistinctInstances(quotes, qt -> List.of(qt.attributedTo())),
+                countDistinctInstances(quotes, qt -> List.copyOf(qt.subjects())),
+                countDistinctInstances(quotes, qt -> List.of(qt.subjects()))
+        );
+        // Making sure the converted quotes are not garbage collected before the measurement
+        Reference.reachabilityFence(quotes);
+    }
+
+    private static long countDistinctInstances(List<Model.Quote> quotes, Function<Model.Quote, List<?>> getObjects) {
+        Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        quotes.forEach(qt -> instances.addAll(getObjects.apply(qt)));
+        return instances.size();
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memoryMXBean.getHeapMemoryUsage().getUsed();
+    }
+}
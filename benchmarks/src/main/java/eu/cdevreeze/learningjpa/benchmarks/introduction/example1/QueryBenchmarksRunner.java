@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.benchmarks.introduction.example1;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the query strategy benchmarks with the GC profiler enabled, so that the allocation rate
+ * ("gc.alloc.rate.norm", in bytes per operation) is reported next to throughput and latency percentiles.
+ * The usual JMH command line options can be passed, e.g. "-p quoteCount=10000,100000" or a benchmark
+ * name regex. Without any benchmark regex, all query strategy benchmarks are run.
+ *
+ * @author Chris de Vreeze
+ */
+public class QueryBenchmarksRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        OptionsBuilder optionsBuilder = new OptionsBuilder();
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            optionsBuilder.include(QueryQuotesBenchmark.class.getSimpleName())
+                    .include(QueryQuotesByAuthorBenchmark.class.getSimpleName())
+                    .include(QueryQuotesBySubjectBenchmark.class.getSimpleName());
+        }
+        Options options = optionsBuilder
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
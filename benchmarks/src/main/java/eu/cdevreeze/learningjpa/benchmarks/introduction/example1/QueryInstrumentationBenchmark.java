@@ -0,0 +1,101 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.benchmarks.introduction.example1;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QueryQuotes;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QueryQuotesByAuthor;
+import eu.cdevreeze.learningjpa.introduction.example1.instrumentation.QueryInstrumentation;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * JMH benchmarks of the overhead of {@link QueryInstrumentation}, running the same queries with and without it
+ * (parameter "instrumented"). With instrumentation, each query runs as a logical query, each session gets a listener
+ * counting and timing its JDBC statement executions, and each entity load is counted. The JDBC objects are not
+ * wrapped, so the per-row cost of a query such as "findAllQuotesUsingProjection" does not change.
+ * <p>
+ * Note that the database is the file-backed one by default (see {@link QuotesDatabase}); against a remote database,
+ * the overhead is relatively smaller.
+ *
+ * @author Chris de Vreeze
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryInstrumentationBenchmark {
+
+    @Param({"Ada Arendt"}) // the most frequent generated author
+    public String authorName;
+
+    /**
+     * {@link QuotesDatabase} whose EntityManagerFactory is instrumented or not, depending on parameter "instrumented".
+     */
+    public static class InstrumentableQuotesDatabase extends QuotesDatabase {
+
+        @Param({"false", "true"})
+        public boolean instrumented;
+
+        private QueryInstrumentation instrumentation;
+
+        @Override
+        protected EntityManagerFactory createEntityManagerFactory(Map<String, Object> properties) {
+            if (!instrumented) {
+                return super.createEntityManagerFactory(properties);
+            }
+            // No slow query logging, which would measure console output
+            instrumentation = new QueryInstrumentation(Duration.ofDays(1));
+            Map<String, Object> instrumentedProperties = ImmutableMap.<String, Object>builder()
+                    .putAll(properties)
+                    .putAll(instrumentation.entityManagerFactoryProperties())
+                    .build();
+            return instrumentation.instrument(super.createEntityManagerFactory(instrumentedProperties));
+        }
+
+        <R> R callInTransaction(String queryName, Function<EntityManager, R> query) {
+            return instrumented
+                    ? instrumentation.callInTransaction(getEntityManagerFactory(), queryName, query)
+                    : getEntityManagerFactory().callInTransaction(query);
+        }
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotes(InstrumentableQuotesDatabase db) {
+        return db.callInTransaction("findAllQuotes", QueryQuotes::findAllQuotes);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingProjection(InstrumentableQuotesDatabase db) {
+        return db.callInTransaction("findAllQuotesUsingProjection", QueryQuotes::findAllQuotesUsingProjection);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthor(InstrumentableQuotesDatabase db) {
+        return db.callInTransaction("findQuotesByAuthor", em -> QueryQuotesByAuthor.findQuotesByAuthor(em, authorName));
+    }
+}
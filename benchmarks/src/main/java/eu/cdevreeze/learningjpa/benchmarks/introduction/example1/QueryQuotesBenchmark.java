@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.benchmarks.introduction.example1;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.console.KeysetQuotePager;
+import eu.cdevreeze.learningjpa.introduction.example1.console.ParallelQuotesReader;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QueryQuotes;
+import eu.cdevreeze.learningjpa.introduction.example1.console.ReadOnlyTransactions;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the query strategies for all quotes in {@link QueryQuotes}.
+ * Each benchmark method runs one query strategy in its own transaction, like the console program does.
+ * Throughput and latency percentiles are measured (modes "thrpt" and "sample"). Allocation rates are
+ * reported when running with the GC profiler (see {@link QueryBenchmarksRunner}).
+ *
+ * @author Chris de Vreeze
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryQuotesBenchmark {
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotes(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotes);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesInReadOnlyTransaction(QuotesDatabase db) {
+        return ReadOnlyTransactions.callInReadOnlyTransaction(db.getEntityManagerFactory(), QueryQuotes::findAllQuotes);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingCriteriaApi(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesUsingCriteriaApi);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesOneByOne(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesOneByOne);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingEntityGraph(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesUsingEntityGraph);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingCriteriaApiAndEntityGraph(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesUsingCriteriaApiAndEntityGraph);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingNamedQuery(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesUsingNamedQuery);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingNamedCriteriaQuery(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesUsingNamedCriteriaQuery);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingBatchFetching(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesUsingBatchFetching);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingSubselectFetching(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesUsingSubselectFetching);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingProjection(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesUsingProjection);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingJdbc(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotesUsingJdbc);
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesUsingKeysetPagination(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em ->
+                QueryQuotes.findAllQuotesUsingKeysetPagination(em, KeysetQuotePager.DEFAULT_PAGE_SIZE));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findAllQuotesInParallel(QuotesDatabase db) {
+        return QueryQuotes.findAllQuotesInParallel(db.getEntityManagerFactory(), ParallelQuotesReader.DEFAULT_CONCURRENCY);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.benchmarks.introduction.example1;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QueryQuotesByAuthor;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the query strategies for quotes by author in {@link QueryQuotesByAuthor}.
+ * Each benchmark method runs one query strategy in its own transaction, like the console program does.
+ * Throughput and latency percentiles are measured (modes "thrpt" and "sample"). Allocation rates are
+ * reported when running with the GC profiler (see {@link QueryBenchmarksRunner}).
+ *
+ * @author Chris de Vreeze
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryQuotesByAuthorBenchmark {
+
+    @Param({"Ada Arendt"}) // the most frequent generated author
+    public String authorName;
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthor(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesByAuthor.findQuotesByAuthor(em, authorName));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthorUsingCriteriaApi(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesByAuthor.findQuotesByAuthorUsingCriteriaApi(em, authorName));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthorUsingEntityGraph(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesByAuthor.findQuotesByAuthorUsingEntityGraph(em, authorName));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthorUsingCriteriaApiAndEntityGraph(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesByAuthor.findQuotesByAuthorUsingCriteriaApiAndEntityGraph(em, authorName));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthorVerboselyUsingEntityGraph(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesByAuthor.findQuotesByAuthorVerboselyUsingEntityGraph(em, authorName));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthorUsingProjection(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesByAuthor.findQuotesByAuthorUsingProjection(em, authorName));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthorUsingJdbc(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesByAuthor.findQuotesByAuthorUsingJdbc(em, authorName));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthorUsingNamedQuery(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesByAuthor.findQuotesByAuthorUsingNamedQuery(em, authorName));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesByAuthorUsingNamedCriteriaQuery(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesByAuthor.findQuotesByAuthorUsingNamedCriteriaQuery(em, authorName));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.benchmarks.introduction.example1;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QueryQuotesBySubject;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the query strategies for quotes by subject in {@link QueryQuotesBySubject}.
+ * Each benchmark method runs one query strategy in its own transaction, like the console program does.
+ * Throughput and latency percentiles are measured (modes "thrpt" and "sample"). Allocation rates are
+ * reported when running with the GC profiler (see {@link QueryBenchmarksRunner}).
+ * <p>
+ * The differences between the single-query strategies and the two-phase strategy grow with the number of quotes
+ * per subject, so it is worthwhile to also run with larger databases, e.g. "-p quoteCount=10000,100000".
+ *
+ * @author Chris de Vreeze
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryQuotesBySubjectBenchmark {
+
+    @Param({"life"}) // the most frequent generated subject
+    public String subject;
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubject(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubject(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingCriteriaApi(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingCriteriaApi(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingEntityGraph(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingEntityGraph(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingCriteriaApiAndEntityGraph(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingCriteriaApiAndEntityGraph(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingInAndUsingEntityGraph(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingInAndUsingEntityGraph(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectInTwoPhases(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectInTwoPhases(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingIdSubquery(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingIdSubquery(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingSubselectFetching(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingSubselectFetching(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingProjection(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingProjection(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingJdbc(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingJdbc(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingNamedQuery(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingNamedQuery(em, subject));
+    }
+
+    @Benchmark
+    public ImmutableList<Model.Quote> findQuotesBySubjectUsingNamedCriteriaQuery(QuotesDatabase db) {
+        return db.getEntityManagerFactory().callInTransaction(em -> QueryQuotesBySubject.findQuotesBySubjectUsingNamedCriteriaQuery(em, subject));
+    }
+}
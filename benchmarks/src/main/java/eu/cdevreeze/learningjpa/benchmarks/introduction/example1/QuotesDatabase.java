@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.benchmarks.introduction.example1;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.learningjpa.introduction.example1.console.BulkQuotesInserter;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuoteCorpusGenerator;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesEntityManagerFactoryCreator;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesInserter;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesPersistenceProfile;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+
+/**
+ * JMH state holding an EntityManagerFactory for a generated quotes database of a given size ("quoteCount").
+ * The database is generated once per trial. It contains the sample quotes of {@link QuotesInserter}, and for the rest
+ * quotes generated by a {@link QuoteCorpusGenerator} (with its default settings and a fixed seed), bulk inserted.
+ * Hence, the authors and subjects of the quotes follow a skewed distribution, and most quotes are generated ones.
+ * SQL logging is turned off, in order not to measure console output.
+ * <p>
+ * By default, the file-backed database of the BENCH persistence profile is used, so that the benchmarks measure
+ * the real data path, instead of that of an in-memory database. Another profile can be chosen with system property
+ * "quotes.profile", e.g. with JMH option "-jvmArgsAppend -Dquotes.profile=dev" (see {@link QuotesPersistenceProfile}).
+ *
+ * @author Chris de Vreeze
+ */
+@State(Scope.Benchmark)
+public class QuotesDatabase {
+
+    /**
+     * The number of quotes in the generated database. Larger sizes can be passed on the command line,
+     * e.g. "-p quoteCount=10000,100000,1000000,10000000" (for the largest sizes, give the JVM enough heap).
+     */
+    @Param({"10000"})
+    public int quoteCount;
+
+    /**
+     * The number of lazy associations initialized per SQL query (see {@link QuotesEntityManagerFactoryCreator}).
+     * Other sizes can be passed on the command line, e.g. "-p batchFetchSize=1,16,64,256" (where 1 disables batch fetching).
+     */
+    @Param({"64"})
+    public int batchFetchSize;
+
+    /**
+     * The seed of the quote corpus generator. Other seeds give other quotes, with the same distributions.
+     */
+    @Param({"42"})
+    public long corpusSeed;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .putAll(BulkQuotesInserter.jdbcBatchingProperties(BulkQuotesInserter.DEFAULT_BATCH_SIZE))
+                .put("hibernate.default_batch_fetch_size", batchFetchSize) // Hibernate-specific
+                .build();
+        entityManagerFactory = createEntityManagerFactory(properties);
+
+        ImmutableList<Model.Quote> sampleQuotes =
+                entityManagerFactory.callInTransaction(em ->
+                        new QuotesInserter(em).insertQuotes().stream().map(Quote::toModel).collect(ImmutableList.toImmutableList()));
+
+        // Generated lazily, so the quotes need not all be in memory at the same time
+        int remainingQuoteCount = Math.max(0, quoteCount - sampleQuotes.size());
+        QuoteCorpusGenerator generator = new QuoteCorpusGenerator(QuoteCorpusGenerator.Settings.defaults(corpusSeed));
+        Iterable<Model.Quote> quotes = () -> generator.generateQuotes(remainingQuoteCount).iterator();
+        entityManagerFactory.runInTransaction(em -> new BulkQuotesInserter(em).insertQuotes(quotes));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    /**
+     * Creates the EntityManagerFactory, given the properties (on top of those of the persistence profile).
+     * Subclasses can override this method, e.g. to instrument the EntityManagerFactory.
+     */
+    protected EntityManagerFactory createEntityManagerFactory(Map<String, Object> properties) {
+        return QuotesEntityManagerFactoryCreator.createEntityManagerFactory(
+                QuotesPersistenceProfile.fromSystemProperty(QuotesPersistenceProfile.BENCH),
+                properties);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
+import jakarta.persistence.EntityManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Set-based upserter of authors and subjects, identified by name. Given a collection of names, the existing
+ * entities are retrieved with one "IN" query per entity type (for at most "max IN list size" names per query),
+ * and all missing entities are persisted and then flushed together. If the EntityManagerFactory has been created
+ * with JDBC batching turned on (see {@link BulkQuotesInserter#jdbcBatchingProperties(int)}), the missing rows
+ * are therefore inserted in JDBC batches.
+ * <p>
+ * The returned name-to-entity maps contain managed entities, which can be used directly for wiring up new Quote
+ * entities, as long as the persistence context has not been cleared in the meantime.
+ * <p>
+ * An instance of this class is meant to be used within one transaction.
+ *
+ * @author Chris de Vreeze
+ */
+public class AuthorAndSubjectUpserter {
+
+    public static final int DEFAULT_MAX_IN_LIST_SIZE = 1000;
+
+    private final EntityManager entityManager;
+    private final int maxInListSize;
+
+    private long insertedAuthorCount = 0;
+    private long insertedSubjectCount = 0;
+
+    public AuthorAndSubjectUpserter(EntityManager entityManager, int maxInListSize) {
+        Preconditions.checkArgument(maxInListSize > 0);
+        this.entityManager = entityManager;
+        this.maxInListSize = maxInListSize;
+    }
+
+    public AuthorAndSubjectUpserter(EntityManager entityManager) {
+        this(entityManager, DEFAULT_MAX_IN_LIST_SIZE);
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public int getMaxInListSize() {
+        return maxInListSize;
+    }
+
+    /**
+     * Returns the number of authors inserted by this upserter so far.
+     */
+    public long getInsertedAuthorCount() {
+        return insertedAuthorCount;
+    }
+
+    /**
+     * Returns the number of subjects inserted by this upserter so far.
+     */
+    public long getInsertedSubjectCount() {
+        return insertedSubjectCount;
+    }
+
+    /**
+     * Upserts the authors with the given names, returning a mapping from each (distinct) name to the Author entity.
+     */
+    public ImmutableMap<String, Author> upsertAuthors(Collection<String> names) {
+        Map<String, Author> authors = findExisting(names, "findByNames", "names", Author.class, Author::getName);
+        List<Author> missingAuthors = persistMissing(names, authors, Author::new, Author::getName);
+        insertedAuthorCount += missingAuthors.size();
+        return ImmutableMap.copyOf(authors);
+    }
+
+    /**
+     * Upserts the subjects with the given names, returning a mapping from each (distinct) name to the Subject entity.
+     */
+    public ImmutableMap<String, Subject> upsertSubjects(Collection<String> subjects) {
+        Map<String, Subject> subjectEntities =
+                findExisting(subjects, "findBySubjects", "subjects", Subject.class, Subject::getSubject);
+        List<Subject> missingSubjects = persistMissing(subjects, subjectEntities, Subject::new, Subject::getSubject);
+        insertedSubjectCount += missingSubjects.size();
+        return ImmutableMap.copyOf(subjectEntities);
+    }
+
+    private <E> Map<String, E> findExisting(
+            Collection<String> names,
+            String namedQuery,
+            String parameterName,
+            Class<E> entityClass,
+            Function<E, String> getName
+    ) {
+        Map<String, E> result = new HashMap<>();
+        // Partitioning the distinct names, because databases limit the number of IN list elements (or bind parameters)
+        for (List<String> nameChunk : Iterables.partition(ImmutableSet.copyOf(names), maxInListSize)) {
+            // Not using getResultStream, which would keep each chunk's JDBC resources open until the EntityManager is closed
+            entityManager.createNamedQuery(namedQuery, entityClass)
+                    .setParameter(parameterName, nameChunk)
+                    .getResultList()
+                    .forEach(entity -> result.put(getName.apply(entity), entity));
+        }
+        return result;
+    }
+
+    private <E> List<E> persistMissing(
+            Collection<String> names,
+            Map<String, E> entities,
+            Function<String, E> newEntity,
+            Function<E, String> getName
+    ) {
+        List<E> missingEntities = ImmutableSet.copyOf(names).stream()
+                .filter(name -> !entities.containsKey(name))
+                .map(newEntity)
+                .toList();
+
+        if (!missingEntities.isEmpty()) {
+            // Upserting the hard way. We configured no cascading behaviour.
+            missingEntities.forEach(entityManager::persist);
+            // One flush for all missing entities, sending the inserts in one JDBC batch (if JDBC batching has been configured)
+            entityManager.flush();
+        }
+
+        // The IDs have been assigned by "persist", so the new entities can be added to the name-to-entity mapping
+        missingEntities.forEach(entity -> entities.put(getName.apply(entity), entity));
+        return missingEntities;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Example program comparing the throughput (in inserted rows per second) of inserting quotes one by one, as done
+ * in {@link QuotesInserter}, with that of the {@link BulkQuotesInserter}. Both first insert the sample quotes into
+ * a fresh H2 in-memory database, and then (timed) insert copies of them a configurable number of times (default 1000).
+ * Logging of SQL is turned off for both, in order not to measure console output.
+ *
+ * @author Chris de Vreeze
+ */
+public class BulkInsertQuotes {
+
+    public static void main(String[] args) {
+        int rounds = (args.length == 0) ? 1000 : Integer.parseInt(args[0]);
+        int batchSize = (args.length <= 1) ? BulkQuotesInserter.DEFAULT_BATCH_SIZE : Integer.parseInt(args[1]);
+        Preconditions.checkArgument(rounds > 0);
+
+        // The current path: one persist call per entity (with "contains" checks), as in QuotesInserter, all in one persistence context
+        long oneByOneRowCount;
+        long oneByOneNanos;
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(QuotesPersistenceProfile.withoutSqlLogging())) {
+            List<Long> result = emf.callInTransaction(em -> {
+                List<Quote> sampleQuotes = new QuotesInserter(em).insertQuotes();
+                em.flush();
+
+                long start = System.nanoTime();
+                long rowCount = 0;
+                for (int i = 0; i < rounds; i++) {
+                    for (Quote sampleQuote : sampleQuotes) {
+                        Quote quote = new Quote(sampleQuote.getQuoteText(), sampleQuote.getAttributedTo(), sampleQuote.getSubjects());
+                        Preconditions.checkArgument(!em.contains(quote));
+                        em.persist(quote);
+                        Preconditions.checkArgument(em.contains(quote));
+                        rowCount += 1 + quote.getSubjects().size();
+                    }
+                }
+                em.flush();
+                return List.of(rowCount, System.nanoTime() - start);
+            });
+            oneByOneRowCount = result.get(0);
+            oneByOneNanos = result.get(1);
+        }
+
+        // The bulk path: BulkQuotesInserter, using JDBC batching and regularly clearing the persistence context
+        BulkQuotesInserter.RowCounts bulkRowCounts;
+        long bulkNanos;
+        Map<String, Object> bulkProperties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .putAll(BulkQuotesInserter.jdbcBatchingProperties(batchSize))
+                .build();
+        ImmutableList<Model.Quote> sampleQuotes;
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(bulkProperties)) {
+            sampleQuotes = emf.callInTransaction(em ->
+                    new QuotesInserter(em).insertQuotes().stream().map(Quote::toModel).collect(ImmutableList.toImmutableList()));
+            Iterable<Model.Quote> quotes = Iterables.concat(Collections.nCopies(rounds, sampleQuotes));
+
+            long start = System.nanoTime();
+            bulkRowCounts = emf.callInTransaction(em -> new BulkQuotesInserter(em, batchSize).insertQuotes(quotes));
+            bulkNanos = System.nanoTime() - start;
+        }
+
+        Preconditions.checkArgument(bulkRowCounts.quoteCount() == (long) rounds * sampleQuotes.size());
+
+        System.out.println();
+        printThroughput("One-by-one (as in QuotesInserter)", oneByOneRowCount, oneByOneNanos);
+        printThroughput("Bulk (BulkQuotesInserter, batch size " + batchSize + ")", bulkRowCounts.rowCount(), bulkNanos);
+        System.out.printf(
+                "Bulk rows: %d authors, %d subjects, %d quotes, %d quote-subject rows%n",
+                bulkRowCounts.authorCount(),
+                bulkRowCounts.subjectCount(),
+                bulkRowCounts.quoteCount(),
+                bulkRowCounts.quoteSubjectCount()
+        );
+    }
+
+    private static void printThroughput(String description, long rowCount, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("%s: %d rows in %.3f s, %.0f rows/s%n", description, rowCount, seconds, rowCount / seconds);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk quotes inserter using JPA, meant for inserting large numbers of quotes.
+ * <p>
+ * Unlike {@link QuotesInserter}, this inserter flushes and clears the persistence context every "batch size" quotes.
+ * Hence, the persistence context does not grow with the number of inserted quotes. If the EntityManagerFactory has
+ * been created with the Hibernate JDBC batching properties returned by {@link #jdbcBatchingProperties(int)},
+ * each flush sends the Quote and QuoteSubject inserts to the database as JDBC batches instead of one
+ * round trip per row.
+ * <p>
+ * Authors and subjects are identified by name. Per batch, the ones not seen before are looked up (or else inserted)
+ * in a set-based way, using an {@link AuthorAndSubjectUpserter}. After that, only their IDs are remembered, and
+ * references to them are obtained with {@link EntityManager#getReference(Class, Object)}, so no detached entities
+ * are ever referred to.
+ * <p>
+ * An instance of this class is meant to be used within one transaction.
+ *
+ * @author Chris de Vreeze
+ */
+public class BulkQuotesInserter {
+
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    public record RowCounts(long authorCount, long subjectCount, long quoteCount, long quoteSubjectCount) {
+
+        public long rowCount() {
+            return authorCount + subjectCount + quoteCount + quoteSubjectCount;
+        }
+    }
+
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    // Name-to-ID mappings, so no entities need to be kept in memory across batches
+    private final Map<String, Long> authorIds = new HashMap<>();
+    private final Map<String, Long> subjectIds = new HashMap<>();
+
+    private final AuthorAndSubjectUpserter upserter;
+
+    public BulkQuotesInserter(EntityManager entityManager, int batchSize) {
+        Preconditions.checkArgument(batchSize > 0);
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+        this.upserter = new AuthorAndSubjectUpserter(entityManager);
+    }
+
+    public BulkQuotesInserter(EntityManager entityManager) {
+        this(entityManager, DEFAULT_BATCH_SIZE);
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the Hibernate-specific properties that turn on JDBC batching for the given batch size.
+     * They are meant to be passed to {@link QuotesEntityManagerFactoryCreator#createEntityManagerFactory(Map)}.
+     * Ordering the inserts by entity type keeps the batches as large as possible.
+     */
+    public static ImmutableMap<String, Object> jdbcBatchingProperties(int batchSize) {
+        return ImmutableMap.of(
+                "hibernate.jdbc.batch_size", batchSize,
+                "hibernate.order_inserts", true
+        );
+    }
+
+    /**
+     * Inserts the given quotes, ignoring their IDs (if any), and returns the number of inserted rows per table.
+     * Authors and subjects not yet in the database are inserted as well. The persistence context is cleared
+     * along the way, so no entities are returned.
+     */
+    public RowCounts insertQuotes(Iterable<Model.Quote> quotes) {
+        long authorCountBefore = upserter.getInsertedAuthorCount();
+        long subjectCountBefore = upserter.getInsertedSubjectCount();
+        long quoteCount = 0;
+        long quoteSubjectCount = 0;
+
+        for (List<Model.Quote> quoteBatch : Iterables.partition(quotes, batchSize)) {
+            resolveAuthorsAndSubjects(quoteBatch);
+
+            for (Model.Quote quote : quoteBatch) {
+                Author author = entityManager.getReference(Author.class, authorIds.get(quote.attributedTo().name()));
+                List<Subject> subjects = quote.subjects().stream()
+                        .map(subj -> entityManager.getReference(Subject.class, subjectIds.get(subj.subject())))
+                        .toList();
+
+                // No "contains" checks here, unlike in QuotesInserter
+                entityManager.persist(new Quote(quote.quoteText(), author, subjects));
+
+                quoteCount += 1;
+                quoteSubjectCount += subjects.size();
+            }
+            flushAndClear();
+        }
+
+        return new RowCounts(
+                upserter.getInsertedAuthorCount() - authorCountBefore,
+                upserter.getInsertedSubjectCount() - subjectCountBefore,
+                quoteCount,
+                quoteSubjectCount
+        );
+    }
+
+    private void flushAndClear() {
+        // Each flush sends the pending inserts in JDBC batches (if JDBC batching has been configured)
+        entityManager.flush();
+        // After clearing, all entities in the persistence context are detached, so the persistence context stays small
+        entityManager.clear();
+    }
+
+    private void resolveAuthorsAndSubjects(List<Model.Quote> quoteBatch) {
+        // Set-based upserts of the authors and subjects of the batch not seen before, with one query per entity type
+        ImmutableSet<String> newAuthorNames = quoteBatch.stream()
+                .map(qt -> qt.attributedTo().name())
+                .filter(name -> !authorIds.containsKey(name))
+                .collect(ImmutableSet.toImmutableSet());
+        ImmutableSet<String> newSubjectNames = quoteBatch.stream()
+                .flatMap(qt -> qt.subjects().stream())
+                .map(Model.Subject::subject)
+                .filter(subj -> !subjectIds.containsKey(subj))
+                .collect(ImmutableSet.toImmutableSet());
+
+        if (!newAuthorNames.isEmpty()) {
+            upserter.upsertAuthors(newAuthorNames).forEach((name, author) -> authorIds.put(name, author.getId()));
+        }
+        if (!newSubjectNames.isEmpty()) {
+            upserter.upsertSubjects(newSubjectNames).forEach((subj, subject) -> subjectIds.put(subj, subject.getId()));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Example program comparing the throughput of a {@link QuoteQueryService} under concurrent load (see
+ * {@link LoadTestQuoteQueryService}), once with Hibernate's built-in JDBC connection pool, and once with a HikariCP
+ * connection pool (see {@link QuotesConnectionPoolCreator}), both of the same size, against the H2 in-memory database.
+ * The program arguments are the number of requests (default 10000) and the connection pool size (default
+ * {@link QuotesConnectionPoolCreator#DEFAULT_MAXIMUM_POOL_SIZE}), which is also the maximum number of concurrent
+ * queries admitted by the service. Afterward, the metrics of the HikariCP connection pool are printed as well.
+ *
+ * @author Chris de Vreeze
+ */
+public class CompareConnectionPools {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    public static void main(String[] args) throws Exception {
+        int requestCount = (args.length == 0) ? 10_000 : Integer.parseInt(args[0]);
+        int poolSize = (args.length <= 1) ? QuotesConnectionPoolCreator.DEFAULT_MAXIMUM_POOL_SIZE : Integer.parseInt(args[1]);
+        Preconditions.checkArgument(requestCount > 0);
+        Preconditions.checkArgument(poolSize > 0);
+
+        Map<String, Object> builtInPoolProperties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .put("hibernate.connection.pool_size", poolSize) // Hibernate-specific
+                .build();
+
+        QuoteQueryService.Statistics builtInPoolStatistics;
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(builtInPoolProperties)) {
+            builtInPoolStatistics = LoadTestQuoteQueryService.runLoadTest(emf, requestCount, poolSize, TIMEOUT);
+        }
+
+        QuoteQueryService.Statistics hikariPoolStatistics;
+        QuotesConnectionPoolMetrics hikariPoolMetrics;
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(
+                QuotesConnectionPoolCreator.createDataSource(poolSize),
+                QuotesPersistenceProfile.withoutSqlLogging())) {
+            hikariPoolStatistics = LoadTestQuoteQueryService.runLoadTest(emf, requestCount, poolSize, TIMEOUT);
+            hikariPoolMetrics = QuotesConnectionPoolMetrics.of(emf);
+        }
+
+        System.out.println();
+        System.out.println("Hibernate built-in connection pool:");
+        LoadTestQuoteQueryService.printStatistics(builtInPoolStatistics, poolSize);
+
+        System.out.println();
+        System.out.println("HikariCP connection pool:");
+        LoadTestQuoteQueryService.printStatistics(hikariPoolStatistics, poolSize);
+        System.out.printf(
+                "Pool: %d active, %d idle, %d total connections, %d threads awaiting a connection%n",
+                hikariPoolMetrics.activeConnections(),
+                hikariPoolMetrics.idleConnections(),
+                hikariPoolMetrics.totalConnections(),
+                hikariPoolMetrics.threadsAwaitingConnection()
+        );
+        System.out.printf(
+                "Acquisitions: %d (%.0f/s), timeouts: %d, mean wait: %.3f ms, max wait: %.3f ms%n",
+                hikariPoolMetrics.acquisitionCount(),
+                hikariPoolMetrics.acquisitionsPerSecond(),
+                hikariPoolMetrics.timeoutCount(),
+                hikariPoolMetrics.meanWaitMillis(),
+                hikariPoolMetrics.maxWaitMillis()
+        );
+
+        System.out.println();
+        System.out.printf(
+                "Throughput ratio (HikariCP / built-in): %.2f%n",
+                hikariPoolStatistics.throughputPerSecond() / builtInPoolStatistics.throughputPerSecond()
+        );
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.math.LongMath;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.ConnectionFunction;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Example program showing the number of database sequence round trips needed for ID generation during a
+ * bulk load. The sample quotes are inserted a configurable number of times (default 1000), spread over a
+ * configurable number of concurrent virtual threads (default 4), each with its own EntityManager.
+ * Afterward, the number of sequence calls is derived from the sequence state in the H2 INFORMATION_SCHEMA,
+ * and compared with the number of sequence calls of the original GenerationType.AUTO mapping, which used pooled
+ * sequences with Hibernate's default increment of 50. That baseline needs one sequence call per 50 inserted rows.
+ *
+ * @author Chris de Vreeze
+ */
+public class CountSequenceRoundTrips {
+
+    // The default "allocationSize" of the JPA SequenceGenerator annotation, used by GenerationType.AUTO
+    private static final long DEFAULT_INCREMENT = 50;
+
+    private record SequenceState(String sequenceName, long startValue, long increment, long baseValue) {
+
+        long callCount() {
+            return (baseValue - startValue) / increment;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rounds = (args.length == 0) ? 1000 : Integer.parseInt(args[0]);
+        int threadCount = (args.length <= 1) ? 4 : Integer.parseInt(args[1]);
+        Preconditions.checkArgument(rounds > 0);
+        Preconditions.checkArgument(threadCount > 0);
+
+        Map<String, Object> properties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .putAll(BulkQuotesInserter.jdbcBatchingProperties(BulkQuotesInserter.DEFAULT_BATCH_SIZE))
+                .build();
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(properties)) {
+            // Inserting the authors and subjects first, so the concurrent bulk inserts below find them
+            ImmutableList<Model.Quote> sampleQuotes =
+                    emf.callInTransaction(em ->
+                            new QuotesInserter(em).insertQuotes().stream().map(Quote::toModel).collect(ImmutableList.toImmutableList()));
+
+            long start = System.nanoTime();
+            List<Future<BulkQuotesInserter.RowCounts>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < threadCount; i++) {
+                    int roundsForThread = rounds / threadCount + ((i < rounds % threadCount) ? 1 : 0);
+                    Iterable<Model.Quote> quotes = Iterables.concat(Collections.nCopies(roundsForThread, sampleQuotes));
+                    results.add(executor.submit(() ->
+                            emf.callInTransaction(em -> new BulkQuotesInserter(em).insertQuotes(quotes))));
+                }
+            }
+            long nanos = System.nanoTime() - start;
+
+            long quoteCount = sampleQuotes.size();
+            for (Future<BulkQuotesInserter.RowCounts> result : results) {
+                quoteCount += result.get().quoteCount();
+            }
+
+            List<SequenceState> sequenceStates = emf.callInTransaction(em -> em.callWithConnection(sequenceStateQuery()));
+            Map<String, Long> rowCounts = emf.callInTransaction(em -> ImmutableMap.of(
+                    "AUTHOR_SEQ", em.createQuery("select count(a) from Author a", Long.class).getSingleResult(),
+                    "SUBJECT_SEQ", em.createQuery("select count(s) from Subject s", Long.class).getSingleResult(),
+                    "QUOTE_SEQ", em.createQuery("select count(q) from Quote q", Long.class).getSingleResult()
+            ));
+            Preconditions.checkArgument(rowCounts.get("QUOTE_SEQ") == quoteCount);
+
+            System.out.println();
+            System.out.printf("Inserted %d quotes on %d threads in %.3f s%n", quoteCount, threadCount, nanos / 1_000_000_000.0);
+            for (SequenceState sequenceState : sequenceStates) {
+                System.out.printf(
+                        "%s: %d rows, %d sequence calls (block size %d), instead of %d sequence calls with the default increment of %d%n",
+                        sequenceState.sequenceName(),
+                        rowCounts.get(sequenceState.sequenceName()),
+                        sequenceState.callCount(),
+                        sequenceState.increment(),
+                        LongMath.divide(rowCounts.get(sequenceState.sequenceName()), DEFAULT_INCREMENT, RoundingMode.CEILING),
+                        DEFAULT_INCREMENT
+                );
+            }
+        }
+    }
+
+    private static ConnectionFunction<Connection, List<SequenceState>> sequenceStateQuery() {
+        return con -> {
+            String sql = """
+                    select SEQUENCE_NAME, START_VALUE, INCREMENT, BASE_VALUE
+                    from INFORMATION_SCHEMA.SEQUENCES
+                    order by SEQUENCE_NAME""";
+
+            List<SequenceState> sequenceStates = new ArrayList<>();
+            try (PreparedStatement ps = con.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sequenceStates.add(new SequenceState(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)));
+                }
+            }
+            return List.copyOf(sequenceStates);
+        };
+    }
+}
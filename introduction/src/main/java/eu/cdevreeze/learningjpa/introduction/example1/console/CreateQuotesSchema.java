@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceConfiguration;
+import jakarta.persistence.SchemaManager;
+import jakarta.persistence.SchemaValidationException;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Program creating the schema of the Quotes database of a given profile (default PROD), unless the existing schema
+ * is already valid. It is needed before first use of the PROD profile, which only validates the schema at startup
+ * (see {@link QuotesPersistenceProfile}). The optional program argument is the profile name.
+ *
+ * @author Chris de Vreeze
+ */
+public class CreateQuotesSchema {
+
+    public static void main(String[] args) {
+        QuotesPersistenceProfile profile =
+                (args.length == 0) ? QuotesPersistenceProfile.PROD : QuotesPersistenceProfile.valueOf(args[0].toUpperCase(Locale.ROOT));
+
+        // No schema generation or validation at startup; that is done below
+        Map<String, Object> properties = Map.of(PersistenceConfiguration.SCHEMAGEN_DATABASE_ACTION, "none");
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(profile, properties)) {
+            SchemaManager schemaManager = emf.getSchemaManager();
+            try {
+                schemaManager.validate();
+                System.out.printf("The schema of the %s database is already valid%n", profile);
+            } catch (SchemaValidationException e) {
+                schemaManager.create(true);
+                System.out.printf("Created the schema of the %s database (at %s)%n", profile, profile.jdbcUrl());
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Program exporting all quotes, with their authors and subjects, to a file or to standard output, in NDJSON or CSV
+ * format (see {@link QuotesExporter}). The quotes are streamed from the database page by page, using a
+ * {@link KeysetQuotePager} in a read-only transaction, so memory use does not depend on the number of quotes.
+ * The export throughput is reported on standard error.
+ * <p>
+ * The program arguments are the format ("ndjson" or "csv", default "ndjson"), the output file ("-" for standard output,
+ * which is the default), and the page size (default {@link KeysetQuotePager#DEFAULT_PAGE_SIZE}).
+ * <p>
+ * The quotes are exported from the database of the profile named by system property "quotes.profile"
+ * (see {@link QuotesPersistenceProfile}). Note that the in-memory database of the default DEV profile starts empty,
+ * so this program is typically run with "-Dquotes.profile=prod", e.g. after loading quotes with {@link GenerateQuoteCorpus}.
+ * Keep in mind that the embedded H2 database shares the JVM heap, so the heap must be larger than its page cache
+ * (the CACHE_SIZE in the JDBC URL of the profile).
+ *
+ * @author Chris de Vreeze
+ */
+public class ExportQuotes {
+
+    public static void main(String[] args) throws IOException {
+        QuotesExporter.Format format =
+                (args.length == 0) ? QuotesExporter.Format.NDJSON : QuotesExporter.Format.valueOf(args[0].toUpperCase(Locale.ROOT));
+        String output = (args.length <= 1) ? "-" : args[1];
+        int pageSize = (args.length <= 2) ? KeysetQuotePager.DEFAULT_PAGE_SIZE : Integer.parseInt(args[2]);
+        Preconditions.checkArgument(pageSize > 0);
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(QuotesPersistenceProfile.withoutSqlLogging());
+             WritableByteChannel channel = openChannel(output)) {
+            long start = System.nanoTime();
+
+            QuotesExporter.ExportCounts counts = ReadOnlyTransactions.callInReadOnlyTransaction(emf, em -> {
+                QuotesExporter exporter = new QuotesExporter(channel, format);
+                try (Stream<Model.Quote> quotes = new KeysetQuotePager(em, pageSize, pageSize).streamAllQuotes()) {
+                    return exporter.export(quotes);
+                }
+            });
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            double megabytes = counts.byteCount() / 1_000_000.0;
+            System.err.printf(
+                    "Exported %d quotes (%.1f MB, %s) in %.3f s: %.1f MB/s, %.0f quotes/s (max heap %d MB)%n",
+                    counts.quoteCount(),
+                    megabytes,
+                    format,
+                    seconds,
+                    megabytes / seconds,
+                    counts.quoteCount() / seconds,
+                    Runtime.getRuntime().maxMemory() / (1024 * 1024)
+            );
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static WritableByteChannel openChannel(String output) throws IOException {
+        if (output.equals("-")) {
+            // Bypassing System.out, which is a PrintStream with its own buffering
+            return Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+        }
+        return FileChannel.open(
+                Path.of(output),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Example program loading a synthetic quote corpus (see {@link QuoteCorpusGenerator}) into the Quotes database,
+ * through the JDBC-batching {@link BulkQuotesInserter}. The quotes are generated lazily, and committed in chunks,
+ * so neither the JVM heap nor the transaction grows with the number of quotes. The loading throughput is reported,
+ * as well as the most frequent authors, to show the skew.
+ * <p>
+ * The program arguments are the number of quotes (default 1000000) and the seed (default 42). The database is that
+ * of the profile named by system property "quotes.profile" (see {@link QuotesPersistenceProfile}). For the DEV profile,
+ * which uses an in-memory database, give the JVM enough heap.
+ *
+ * @author Chris de Vreeze
+ */
+public class GenerateQuoteCorpus {
+
+    private static final int QUOTES_PER_TRANSACTION = 10_000;
+
+    public static void main(String[] args) {
+        long quoteCount = (args.length == 0) ? 1_000_000 : Long.parseLong(args[0]);
+        long seed = (args.length <= 1) ? 42 : Long.parseLong(args[1]);
+        Preconditions.checkArgument(quoteCount > 0);
+
+        QuoteCorpusGenerator generator = new QuoteCorpusGenerator(QuoteCorpusGenerator.Settings.defaults(seed));
+
+        Map<String, Object> properties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .putAll(BulkQuotesInserter.jdbcBatchingProperties(BulkQuotesInserter.DEFAULT_BATCH_SIZE))
+                .build();
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(properties)) {
+            long quoteCountBefore = emf.callInTransaction(GenerateQuoteCorpus::countQuotes);
+
+            long start = System.nanoTime();
+            BulkQuotesInserter.RowCounts rowCounts = loadQuotes(emf, generator.generateQuotes(quoteCount).iterator());
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            Preconditions.checkArgument(rowCounts.quoteCount() == quoteCount);
+            Preconditions.checkArgument(emf.callInTransaction(GenerateQuoteCorpus::countQuotes) == quoteCountBefore + quoteCount);
+
+            System.out.println();
+            System.out.printf(
+                    "Loaded %d quotes (%d rows) in %.3f s: %.0f quotes/s, %.0f rows/s%n",
+                    rowCounts.quoteCount(),
+                    rowCounts.rowCount(),
+                    seconds,
+                    rowCounts.quoteCount() / seconds,
+                    rowCounts.rowCount() / seconds
+            );
+            System.out.printf(
+                    "Rows: %d authors, %d subjects, %d quotes, %d quote-subject rows%n",
+                    rowCounts.authorCount(),
+                    rowCounts.subjectCount(),
+                    rowCounts.quoteCount(),
+                    rowCounts.quoteSubjectCount()
+            );
+
+            System.out.println("Most frequent authors:");
+            for (Tuple row : emf.callInTransaction(GenerateQuoteCorpus::findMostFrequentAuthors)) {
+                System.out.printf("  %-30s %d%n", row.get("author_name", String.class), row.get("quote_count", Long.class));
+            }
+        }
+    }
+
+    private static BulkQuotesInserter.RowCounts loadQuotes(EntityManagerFactory emf, Iterator<Model.Quote> quotes) {
+        try (EntityManager entityManager = emf.createEntityManager()) {
+            // One inserter for all transactions, so that it remembers the IDs of the authors and subjects it has seen
+            BulkQuotesInserter inserter = new BulkQuotesInserter(entityManager);
+            long authorCount = 0;
+            long subjectCount = 0;
+            long quoteCount = 0;
+            long quoteSubjectCount = 0;
+
+            Iterator<List<Model.Quote>> chunks = Iterators.partition(quotes, QUOTES_PER_TRANSACTION);
+            while (chunks.hasNext()) {
+                List<Model.Quote> chunk = chunks.next();
+                entityManager.getTransaction().begin();
+                BulkQuotesInserter.RowCounts chunkRowCounts = inserter.insertQuotes(chunk);
+                entityManager.getTransaction().commit();
+
+                authorCount += chunkRowCounts.authorCount();
+                subjectCount += chunkRowCounts.subjectCount();
+                quoteCount += chunkRowCounts.quoteCount();
+                quoteSubjectCount += chunkRowCounts.quoteSubjectCount();
+            }
+            return new BulkQuotesInserter.RowCounts(authorCount, subjectCount, quoteCount, quoteSubjectCount);
+        }
+    }
+
+    private static long countQuotes(EntityManager entityManager) {
+        return entityManager.createQuery("select count(qt) from Quote qt", Long.class).getSingleResult();
+    }
+
+    private static List<Tuple> findMostFrequentAuthors(EntityManager entityManager) {
+        return entityManager.createQuery(
+                        """
+                                select auth.name as author_name, count(qt) as quote_count
+                                from Quote qt
+                                join qt.attributedTo auth
+                                group by auth.name
+                                order by count(qt) desc""",
+                        Tuple.class)
+                .setMaxResults(5)
+                .getResultList();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Program importing quotes from an NDJSON file (or standard input), as written by {@link ExportQuotes}, using the
+ * pipelined {@link QuotesImporter}. Progress is reported every few seconds, and at the end the throughput of each
+ * pipeline stage is reported, along with the time it spent working and waiting. A stage that hardly waits is the
+ * bottleneck.
+ * <p>
+ * The program arguments are the input file ("-" for standard input, which is the default), and the number of parser
+ * threads (default: the number of available processors). The quotes are imported into the database of the profile
+ * named by system property "quotes.profile" (see {@link QuotesPersistenceProfile}).
+ *
+ * @author Chris de Vreeze
+ */
+public class ImportQuotes {
+
+    private static final int INPUT_BUFFER_SIZE = 1024 * 1024;
+    private static final long PROGRESS_INTERVAL_SECONDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        String input = (args.length == 0) ? "-" : args[0];
+        int parserCount = (args.length <= 1) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[1]);
+        Preconditions.checkArgument(parserCount > 0);
+
+        QuotesImporter.Settings settings = QuotesImporter.Settings.defaults(parserCount);
+
+        Map<String, Object> properties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .putAll(BulkQuotesInserter.jdbcBatchingProperties(settings.jdbcBatchSize()))
+                .build();
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(properties);
+             BufferedReader reader = openReader(input)) {
+            long quoteCountBefore = emf.callInTransaction(ImportQuotes::countQuotes);
+
+            QuotesImporter importer = new QuotesImporter(emf, settings);
+            QuotesImporter.ImportResult result;
+            try (ScheduledExecutorService progressReporter = Executors.newSingleThreadScheduledExecutor()) {
+                progressReporter.scheduleAtFixedRate(
+                        () -> System.out.println("Progress: " + formatProgress(importer.getProgress())),
+                        PROGRESS_INTERVAL_SECONDS,
+                        PROGRESS_INTERVAL_SECONDS,
+                        TimeUnit.SECONDS);
+                result = importer.importQuotes(reader);
+                progressReporter.shutdownNow();
+            }
+
+            BulkQuotesInserter.RowCounts rowCounts = result.rowCounts();
+            Preconditions.checkArgument(
+                    emf.callInTransaction(ImportQuotes::countQuotes) == quoteCountBefore + rowCounts.quoteCount());
+
+            double seconds = result.elapsedNanos() / 1_000_000_000.0;
+            System.out.println();
+            System.out.printf(
+                    "Imported %d quotes (%d rows) in %.3f s: %.0f quotes/s, %.0f rows/s (%d parser threads)%n",
+                    rowCounts.quoteCount(),
+                    rowCounts.rowCount(),
+                    seconds,
+                    rowCounts.quoteCount() / seconds,
+                    rowCounts.rowCount() / seconds,
+                    parserCount
+            );
+            System.out.printf(
+                    "Rows: %d authors, %d subjects, %d quotes, %d quote-subject rows%n",
+                    rowCounts.authorCount(),
+                    rowCounts.subjectCount(),
+                    rowCounts.quoteCount(),
+                    rowCounts.quoteSubjectCount()
+            );
+            for (QuotesImporter.StageStatistics stage : result.stages()) {
+                double busySeconds = stage.busyNanos() / 1_000_000_000.0;
+                System.out.printf(
+                        "  %-8s %9d items, busy %7.3f s (%.0f items/s), waiting %7.3f s%n",
+                        stage.stage(),
+                        stage.itemCount(),
+                        busySeconds,
+                        stage.itemCount() / busySeconds,
+                        stage.waitNanos() / 1_000_000_000.0
+                );
+            }
+        }
+    }
+
+    private static BufferedReader openReader(String input) throws IOException {
+        if (input.equals("-")) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), INPUT_BUFFER_SIZE);
+        }
+        return new BufferedReader(
+                new InputStreamReader(Files.newInputStream(Path.of(input)), StandardCharsets.UTF_8),
+                INPUT_BUFFER_SIZE);
+    }
+
+    private static String formatProgress(ImmutableList<QuotesImporter.StageStatistics> stages) {
+        return stages.stream()
+                .map(stage -> stage.stage() + "=" + stage.itemCount())
+                .collect(Collectors.joining(", "));
+    }
+
+    private static long countQuotes(EntityManager entityManager) {
+        return entityManager.createQuery("select count(qt) from Quote qt", Long.class).getSingleResult();
+    }
+}
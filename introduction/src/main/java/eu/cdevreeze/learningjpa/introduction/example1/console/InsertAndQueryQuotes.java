@@ -16,9 +16,11 @@
 
 package eu.cdevreeze.learningjpa.introduction.example1.console;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote_;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
@@ -29,8 +31,10 @@ import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -66,6 +70,18 @@ public class InsertAndQueryQuotes {
             Preconditions.checkArgument(quotesWithExtraQuote.containsAll(insertedQuotes));
             Preconditions.checkArgument(quotesWithExtraQuote.size() == 2 + insertedQuotes.size());
 
+            // Upserting an existing author and subject again, in a new persistence context. These natural ID lookups
+            // are served by the 2nd level cache, so they need no JDBC round trip.
+            QuotesCacheStatistics cacheStatisticsBefore = QuotesCacheStatistics.of(emf);
+            emf.runInTransaction(em -> {
+                upsertAuthor("David Icke", em);
+                upsertSubject("truth", em);
+            });
+            QuotesCacheStatistics cacheStatistics = QuotesCacheStatistics.of(emf);
+
+            Preconditions.checkArgument(
+                    cacheStatistics.prepareStatementCount() == cacheStatisticsBefore.prepareStatementCount());
+
             quotesWithExtraQuote.forEach(qt -> {
                 System.out.println();
                 System.out.println(qt);
@@ -73,24 +89,32 @@ public class InsertAndQueryQuotes {
 
             System.out.println();
             System.out.printf("Number of quotes: %d%n", quotesWithExtraQuote.size());
+
+            System.out.println();
+            cacheStatistics.regionStatistics().forEach(System.out::println);
         }
     }
 
     private static EntityManagerFactory createEntityManagerFactory() {
-        return QuotesEntityManagerFactoryCreator.createEntityManagerFactory();
+        return QuotesEntityManagerFactoryCreator.createEntityManagerFactory(QuotesCacheStatistics.entityManagerFactoryProperties());
     }
 
-    private static ImmutableList<Model.Quote> insertQuotesThenFindAllQuotes(EntityManager entityManager) {
+    @VisibleForTesting
+    static ImmutableList<Model.Quote> insertQuotesThenFindAllQuotes(EntityManager entityManager) {
         persistSomeQuotes(entityManager);
 
         return findAllQuotes(entityManager);
     }
 
-    private static void persistSomeQuotes(EntityManager entityManager) {
-        // Upserting the hard way. We configured no cascading behaviour.
-        Author davidIcke = upsertAuthor("David Icke", entityManager);
-        Subject tyranny = upsertSubject("tyranny", entityManager);
-        Subject truth = upsertSubject("truth", entityManager);
+    @VisibleForTesting
+    static void persistSomeQuotes(EntityManager entityManager) {
+        // Upserting all needed authors and subjects in a set-based way, with one query per entity type
+        AuthorAndSubjectUpserter upserter = new AuthorAndSubjectUpserter(entityManager);
+        Map<String, Author> authors = upserter.upsertAuthors(List.of("David Icke"));
+        Map<String, Subject> subjects = upserter.upsertSubjects(List.of("tyranny", "truth"));
+        Author davidIcke = authors.get("David Icke");
+        Subject tyranny = subjects.get("tyranny");
+        Subject truth = subjects.get("truth");
 
         entityManager.persist(new Quote(
                 "Scarcity equals dependency equals control",
@@ -106,13 +130,14 @@ public class InsertAndQueryQuotes {
         // Not flushing this time. The JPA EntityManager should do the flushing itself automatically.
     }
 
-    private static Author upsertAuthor(String name, EntityManager entityManager) {
+    @VisibleForTesting
+    static Author upsertAuthor(String name, EntityManager entityManager) {
         // Upserting the hard way. We configured no cascading behaviour.
+        // Looking up the author by natural ID (Hibernate-specific), which can be served by the 2nd level cache
         Optional<Author> authorOption =
-                entityManager.createNamedQuery("findByName", Author.class)
-                        .setParameter("name", name)
-                        .getResultStream()
-                        .findFirst();
+                entityManager.unwrap(Session.class)
+                        .bySimpleNaturalId(Author.class)
+                        .loadOptional(name);
         return authorOption.orElseGet(() -> {
             Author auth = new Author(name);
             entityManager.persist(auth);
@@ -120,13 +145,14 @@ public class InsertAndQueryQuotes {
         });
     }
 
-    private static Subject upsertSubject(String subject, EntityManager entityManager) {
+    @VisibleForTesting
+    static Subject upsertSubject(String subject, EntityManager entityManager) {
         // Upserting the hard way. We configured no cascading behaviour.
+        // Looking up the subject by natural ID (Hibernate-specific), which can be served by the 2nd level cache
         Optional<Subject> subjectOption =
-                entityManager.createNamedQuery("findBySubject", Subject.class)
-                        .setParameter("subject", subject)
-                        .getResultStream()
-                        .findFirst();
+                entityManager.unwrap(Session.class)
+                        .bySimpleNaturalId(Subject.class)
+                        .loadOptional(subject);
         return subjectOption.orElseGet(() -> {
             Subject subj = new Subject(subject);
             entityManager.persist(subj);
@@ -134,7 +160,8 @@ public class InsertAndQueryQuotes {
         });
     }
 
-    private static ImmutableList<Model.Quote> findAllQuotes(EntityManager entityManager) {
+    @VisibleForTesting
+    static ImmutableList<Model.Quote> findAllQuotes(EntityManager entityManager) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
 
@@ -145,10 +172,11 @@ public class InsertAndQueryQuotes {
         quoteGraph.addSubgraph(Quote_.attributedTo);
         quoteGraph.addElementSubgraph(Quote_.subjects);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(cq)
                 .setHint(LOAD_GRAPH, quoteGraph)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote_;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Cursor-based access to all quotes, page by page, using keyset pagination on the quote ID. That is, each page
+ * is queried as the first "page size" quotes with an ID greater than the last ID of the previous page.
+ * Unlike offset-based pagination, this does not get slower for later pages, because the database can use the
+ * primary key index to find the start of each page.
+ * <p>
+ * Each page is retrieved with 2 queries: one for the (ordered) quote IDs of the page, and one for the quotes
+ * with these IDs, along with their authors and subjects. The latter query cannot be limited to a page itself,
+ * because it fetches a collection (so it returns multiple rows per quote).
+ * <p>
+ * After converting a page to the immutable data model, the persistence context is cleared, so the entities of the
+ * page become detached, and memory use is bounded by the page size rather than the number of quotes. Note that
+ * this also detaches any other entities managed by the EntityManager.
+ * <p>
+ * The EntityManager (and its transaction) must remain open while pages or streamed quotes are consumed.
+ *
+ * @author Chris de Vreeze
+ */
+public class KeysetQuotePager {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final String LOAD_GRAPH = "jakarta.persistence.loadgraph";
+    private static final String FETCH_SIZE = "org.hibernate.fetchSize"; // Hibernate-specific
+
+    private final EntityManager entityManager;
+    private final int pageSize;
+    private final int fetchSize;
+
+    public KeysetQuotePager(EntityManager entityManager, int pageSize, int fetchSize) {
+        Preconditions.checkArgument(pageSize > 0);
+        Preconditions.checkArgument(fetchSize > 0);
+        this.entityManager = entityManager;
+        this.pageSize = pageSize;
+        this.fetchSize = fetchSize;
+    }
+
+    public KeysetQuotePager(EntityManager entityManager) {
+        this(entityManager, DEFAULT_PAGE_SIZE, DEFAULT_FETCH_SIZE);
+    }
+
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the page of at most "page size" quotes having an ID greater than the given ID, ordered by ID.
+     * An empty page means that there are no more quotes.
+     */
+    public ImmutableList<Model.Quote> findPageAfter(long lastQuoteId) {
+        List<Long> quoteIds = entityManager.createQuery(
+                        "select qt.id from Quote qt where qt.id > :lastQuoteId order by qt.id",
+                        Long.class)
+                .setParameter("lastQuoteId", lastQuoteId)
+                .setMaxResults(pageSize)
+                .setHint(FETCH_SIZE, fetchSize)
+                .getResultList();
+
+        if (quoteIds.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        EntityGraph<Quote> quoteGraph = entityManager.createEntityGraph(Quote.class);
+        quoteGraph.addSubgraph(Quote_.attributedTo);
+        quoteGraph.addElementSubgraph(Quote_.subjects);
+
+        // One conversion context per page, so the bookkeeping of shared model instances does not grow with the number of pages
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        ImmutableList<Model.Quote> page;
+        // Closing the result stream, or else its JDBC statement and result set are only released with the EntityManager
+        try (Stream<Quote> quotes = entityManager.createQuery(
+                        "select qt from Quote qt where qt.id in :quoteIds order by qt.id",
+                        Quote.class)
+                .setParameter("quoteIds", quoteIds)
+                .setHint(LOAD_GRAPH, quoteGraph)
+                .setHint(FETCH_SIZE, fetchSize)
+                .getResultStream()) {
+            page = quotes.map(conversionContext::toModel).collect(ImmutableList.toImmutableList());
+        }
+
+        // Detaching the entities of this page, so they can be garbage collected
+        entityManager.clear();
+        return page;
+    }
+
+    /**
+     * Returns a lazy iterator over all non-empty pages of quotes, in quote ID order.
+     */
+    public Iterator<ImmutableList<Model.Quote>> pages() {
+        return new PageIterator();
+    }
+
+    /**
+     * Returns a lazy stream of all quotes, in quote ID order. Pages are only queried when needed.
+     */
+    public Stream<Model.Quote> streamAllQuotes() {
+        Spliterator<ImmutableList<Model.Quote>> pageSpliterator =
+                Spliterators.spliteratorUnknownSize(pages(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(pageSpliterator, false).flatMap(List::stream);
+    }
+
+    private final class PageIterator implements Iterator<ImmutableList<Model.Quote>> {
+
+        private long lastQuoteId = Long.MIN_VALUE;
+        private ImmutableList<Model.Quote> nextPage; // null if not yet queried
+        private boolean exhausted = false;
+
+        @Override
+        public boolean hasNext() {
+            if (nextPage == null && !exhausted) {
+                nextPage = findPageAfter(lastQuoteId);
+                exhausted = nextPage.isEmpty();
+            }
+            return !exhausted;
+        }
+
+        @Override
+        public ImmutableList<Model.Quote> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ImmutableList<Model.Quote> page = nextPage;
+            nextPage = null;
+            lastQuoteId = page.getLast().idOption().orElseThrow();
+            // A page that is not full must be the last one, so no need to query for the next (empty) page
+            exhausted = page.size() < pageSize;
+            return page;
+        }
+    }
+}
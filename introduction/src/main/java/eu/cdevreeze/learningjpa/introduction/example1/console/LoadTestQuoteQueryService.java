@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Example program sending a configurable number of concurrent requests (default 10000) to a {@link QuoteQueryService},
+ * each request on its own virtual thread. The requests alternate between finding all quotes, finding quotes by
+ * author and finding quotes by subject. The maximum number of concurrent queries admitted by the service is
+ * configurable as well (default {@link QuoteQueryService#DEFAULT_MAX_CONCURRENT_QUERIES}), and so is the timeout
+ * per call, in seconds (default 60). Since all requests are sent at once, most of them wait for admission, and the
+ * timeout must be large enough to cover that. Each result is checked against the result of the same query run
+ * serially, and afterward the service statistics are printed.
+ *
+ * @author Chris de Vreeze
+ */
+public class LoadTestQuoteQueryService {
+
+    public static void main(String[] args) throws Exception {
+        int requestCount = (args.length == 0) ? 10_000 : Integer.parseInt(args[0]);
+        int maxConcurrentQueries =
+                (args.length <= 1) ? QuoteQueryService.DEFAULT_MAX_CONCURRENT_QUERIES : Integer.parseInt(args[1]);
+        Duration timeout = (args.length <= 2) ? Duration.ofSeconds(60) : Duration.ofSeconds(Long.parseLong(args[2]));
+        Preconditions.checkArgument(requestCount > 0);
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(QuotesPersistenceProfile.withoutSqlLogging())) {
+            QuoteQueryService.Statistics statistics = runLoadTest(emf, requestCount, maxConcurrentQueries, timeout);
+
+            System.out.println();
+            printStatistics(statistics, maxConcurrentQueries);
+        }
+    }
+
+    /**
+     * Inserts the sample quotes, and then sends the given number of concurrent requests to a new QuoteQueryService,
+     * returning the statistics of that service afterward.
+     */
+    public static QuoteQueryService.Statistics runLoadTest(
+            EntityManagerFactory emf,
+            int requestCount,
+            int maxConcurrentQueries,
+            Duration timeout
+    ) throws InterruptedException, ExecutionException {
+        ImmutableList<Model.Quote> insertedQuotes =
+                emf.callInTransaction(em ->
+                        new QuotesInserter(em).insertQuotes().stream().map(Quote::toModel).collect(ImmutableList.toImmutableList()));
+
+        ImmutableList<String> authorNames = insertedQuotes.stream()
+                .map(qt -> qt.attributedTo().name())
+                .distinct()
+                .collect(ImmutableList.toImmutableList());
+        ImmutableList<String> subjects = insertedQuotes.stream()
+                .flatMap(qt -> qt.subjects().stream())
+                .map(Model.Subject::subject)
+                .distinct()
+                .collect(ImmutableList.toImmutableList());
+
+        // The expected results, queried serially up-front, so the concurrent requests only query through the service
+        ImmutableList<Model.Quote> expectedAllQuotes = emf.callInTransaction(QueryQuotes::findAllQuotes);
+        ImmutableMap<String, ImmutableList<Model.Quote>> expectedQuotesByAuthor = emf.callInTransaction(em ->
+                authorNames.stream().collect(ImmutableMap.toImmutableMap(
+                        name -> name,
+                        name -> QueryQuotesByAuthor.findQuotesByAuthor(em, name))));
+        ImmutableMap<String, ImmutableList<Model.Quote>> expectedQuotesBySubject = emf.callInTransaction(em ->
+                subjects.stream().collect(ImmutableMap.toImmutableMap(
+                        subj -> subj,
+                        subj -> QueryQuotesBySubject.findQuotesBySubject(em, subj))));
+
+        QuoteQueryService service = new QuoteQueryService(emf, maxConcurrentQueries, timeout);
+
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requestCount; i++) {
+                results.add(executor.submit(request(
+                        i,
+                        service,
+                        expectedAllQuotes,
+                        expectedQuotesByAuthor,
+                        expectedQuotesBySubject
+                )));
+            }
+        }
+
+        for (Future<Boolean> result : results) {
+            // Timed out requests are counted in the service statistics, and have no result to check
+            if (!(result.state() == Future.State.FAILED && result.exceptionNow() instanceof QueryTimeoutException)) {
+                Preconditions.checkArgument(result.get());
+            }
+        }
+        return service.getStatistics();
+    }
+
+    public static void printStatistics(QuoteQueryService.Statistics statistics, int maxConcurrentQueries) {
+        System.out.printf(
+                "%d requests (at most %d concurrent queries) in %d ms%n",
+                statistics.callCount(),
+                maxConcurrentQueries,
+                Duration.ofNanos(statistics.elapsedNanos()).toMillis()
+        );
+        System.out.printf(
+                "Completed: %d, failed: %d, timed out: %d%n",
+                statistics.completedCount(),
+                statistics.failedCount(),
+                statistics.timedOutCount()
+        );
+        System.out.printf(
+                "Throughput: %.0f requests/s, mean latency: %.2f ms, max latency: %.2f ms%n",
+                statistics.throughputPerSecond(),
+                statistics.meanLatencyMillis(),
+                statistics.maxLatencyMillis()
+        );
+    }
+
+    private static Callable<Boolean> request(
+            int requestIndex,
+            QuoteQueryService service,
+            ImmutableList<Model.Quote> expectedAllQuotes,
+            ImmutableMap<String, ImmutableList<Model.Quote>> expectedQuotesByAuthor,
+            ImmutableMap<String, ImmutableList<Model.Quote>> expectedQuotesBySubject
+    ) {
+        // Returning whether the result of the service call equals the expected result
+        return switch (requestIndex % 3) {
+            case 0 -> () -> service.findAllQuotes().equals(expectedAllQuotes);
+            case 1 -> {
+                String authorName = expectedQuotesByAuthor.keySet().asList().get(requestIndex % expectedQuotesByAuthor.size());
+                yield () -> service.findQuotesByAuthor(authorName).equals(expectedQuotesByAuthor.get(authorName));
+            }
+            default -> {
+                String subject = expectedQuotesBySubject.keySet().asList().get(requestIndex % expectedQuotesBySubject.size());
+                yield () -> service.findQuotesBySubject(subject).equals(expectedQuotesBySubject.get(subject));
+            }
+        };
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Parallel reader of all quotes. The range of quote IDs is split into partitions (of equal ID range width),
+ * and each partition is queried on its own virtual thread, with its own EntityManager (and transaction) obtained
+ * from the shared EntityManagerFactory. The number of partitions queried at the same time is limited by the
+ * configured concurrency, which should not exceed the size of the JDBC connection pool. Having more partitions
+ * than concurrently running queries helps balance the load if quote IDs are not spread evenly.
+ * <p>
+ * The partition results are merged in quote ID order. The quotes are converted to the immutable data model
+ * with one (thread-safe) {@link ModelConversionContext} shared by all partitions, so the result is the same as
+ * that of the serial query methods, including the sharing of author and subject instances.
+ * <p>
+ * Note that the partitions are queried in different transactions, so concurrent updates may lead to a result
+ * that does not correspond to any single database snapshot.
+ *
+ * @author Chris de Vreeze
+ */
+public class ParallelQuotesReader {
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final int DEFAULT_PARTITIONS_PER_THREAD = 4;
+
+    /**
+     * Inclusive range of quote IDs.
+     */
+    public record IdRange(long firstId, long lastId) {
+
+        public IdRange {
+            Preconditions.checkArgument(firstId <= lastId);
+        }
+
+        /**
+         * Splits this ID range into at most the given number of partitions, of (almost) equal width, in ID order.
+         */
+        public ImmutableList<IdRange> partition(int partitionCount) {
+            Preconditions.checkArgument(partitionCount > 0);
+            long width = lastId - firstId + 1;
+            long partitionWidth = Math.ceilDiv(width, partitionCount);
+
+            ImmutableList.Builder<IdRange> partitions = ImmutableList.builder();
+            for (long start = firstId; start <= lastId; start += partitionWidth) {
+                partitions.add(new IdRange(start, Math.min(start + partitionWidth - 1, lastId)));
+            }
+            return partitions.build();
+        }
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final int concurrency;
+    private final int partitionCount;
+
+    public ParallelQuotesReader(EntityManagerFactory entityManagerFactory, int concurrency, int partitionCount) {
+        Preconditions.checkArgument(concurrency > 0);
+        Preconditions.checkArgument(partitionCount > 0);
+        this.entityManagerFactory = entityManagerFactory;
+        this.concurrency = concurrency;
+        this.partitionCount = partitionCount;
+    }
+
+    public ParallelQuotesReader(EntityManagerFactory entityManagerFactory, int concurrency) {
+        this(entityManagerFactory, concurrency, concurrency * DEFAULT_PARTITIONS_PER_THREAD);
+    }
+
+    public ParallelQuotesReader(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory, DEFAULT_CONCURRENCY);
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Returns all quotes, in quote ID order, querying the partitions of the quote ID range in parallel.
+     */
+    public ImmutableList<Model.Quote> findAllQuotes() {
+        Optional<IdRange> quoteIdRange = entityManagerFactory.callInTransaction(ParallelQuotesReader::findQuoteIdRange);
+
+        if (quoteIdRange.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        Semaphore semaphore = new Semaphore(concurrency);
+
+        List<Future<ImmutableList<Model.Quote>>> partitionResults = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (IdRange partition : quoteIdRange.get().partition(partitionCount)) {
+                partitionResults.add(executor.submit(() -> {
+                    // Virtual threads are cheap, but database connections are not, so limiting the concurrent queries
+                    semaphore.acquire();
+                    try {
+                        return entityManagerFactory.callInTransaction(em ->
+                                findQuotesInIdRange(em, partition, conversionContext));
+                    } finally {
+                        semaphore.release();
+                    }
+                }));
+            }
+        } // Closing the executor waits for all partitions to be done
+
+        // The partitions are disjoint and in ID order, so concatenating them keeps the quotes in ID order
+        ImmutableList.Builder<Model.Quote> quotes = ImmutableList.builder();
+        partitionResults.forEach(result -> quotes.addAll(resultOf(result)));
+        return quotes.build();
+    }
+
+    private static Optional<IdRange> findQuoteIdRange(EntityManager entityManager) {
+        Tuple minAndMaxId = entityManager.createQuery("select min(qt.id), max(qt.id) from Quote qt", Tuple.class)
+                .getSingleResult();
+        // For an empty Quote table, the minimum and maximum are null
+        return Optional.ofNullable(minAndMaxId.get(0, Long.class))
+                .map(minId -> new IdRange(minId, minAndMaxId.get(1, Long.class)));
+    }
+
+    private static ImmutableList<Model.Quote> findQuotesInIdRange(
+            EntityManager entityManager,
+            IdRange idRange,
+            ModelConversionContext conversionContext
+    ) {
+        // The same query as QueryQuotes.findAllQuotes, restricted to the ID range and ordered by ID
+        String ql = """
+                select qt from Quote qt
+                join fetch qt.attributedTo
+                left join fetch qt.subjects
+                where qt.id between :firstId and :lastId
+                order by qt.id""";
+        return entityManager.createQuery(ql, Quote.class)
+                .setParameter("firstId", idRange.firstId())
+                .setParameter("lastId", idRange.lastId())
+                .getResultStream()
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static <T> T resultOf(Future<T> future) {
+        if (future.state() == Future.State.FAILED) {
+            Throwable exception = future.exceptionNow();
+            if (exception instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(exception);
+        }
+        return future.resultNow();
+    }
+}
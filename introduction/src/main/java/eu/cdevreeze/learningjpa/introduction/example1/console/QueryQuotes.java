@@ -18,6 +18,7 @@ package eu.cdevreeze.learningjpa.introduction.example1.console;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote_;
 import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
@@ -25,16 +26,20 @@ import jakarta.persistence.ConnectionFunction;
 import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Example program querying for quotes. It uses an H2 in-memory database, and does all the
@@ -87,6 +92,58 @@ public class QueryQuotes {
 
             Preconditions.checkArgument(queriedQuotesUsingCriteriaApiAndGraphHint.equals(insertedQuotes));
 
+            // The same queries, as named (JPQL and criteria) queries, defined once instead of per call
+            ImmutableList<Model.Quote> queriedQuotesUsingNamedQuery =
+                    emf.callInTransaction(QueryQuotes::findAllQuotesUsingNamedQuery);
+
+            Preconditions.checkArgument(queriedQuotesUsingNamedQuery.equals(insertedQuotes));
+
+            ImmutableList<Model.Quote> queriedQuotesUsingNamedCriteriaQuery =
+                    emf.callInTransaction(QueryQuotes::findAllQuotesUsingNamedCriteriaQuery);
+
+            Preconditions.checkArgument(queriedQuotesUsingNamedCriteriaQuery.equals(insertedQuotes));
+
+            // Simple JPQL query, lazily loading the authors and subjects in batches
+            ImmutableList<Model.Quote> queriedQuotesUsingBatchFetching =
+                    emf.callInTransaction(QueryQuotes::findAllQuotesUsingBatchFetching);
+
+            Preconditions.checkArgument(queriedQuotesUsingBatchFetching.equals(insertedQuotes));
+
+            // Simple JPQL query, loading the subjects of all quotes in one subselect query
+            ImmutableList<Model.Quote> queriedQuotesUsingSubselectFetching =
+                    emf.callInTransaction(QueryQuotes::findAllQuotesUsingSubselectFetching);
+
+            Preconditions.checkArgument(queriedQuotesUsingSubselectFetching.equals(insertedQuotes));
+
+            // The same quotes, as projection query, without creating any entities
+            ImmutableList<Model.Quote> queriedQuotesUsingProjection =
+                    emf.callInTransaction(QueryQuotes::findAllQuotesUsingProjection);
+
+            Preconditions.checkArgument(queriedQuotesUsingProjection.equals(insertedQuotes));
+
+            // The same quotes, using plain JDBC, bypassing Hibernate
+            ImmutableList<Model.Quote> queriedQuotesUsingJdbc =
+                    emf.callInTransaction(QueryQuotes::findAllQuotesUsingJdbc);
+
+            Preconditions.checkArgument(queriedQuotesUsingJdbc.equals(insertedQuotes));
+
+            // The same query, in a read-only transaction, without dirty checking
+            ImmutableList<Model.Quote> queriedQuotesInReadOnlyTransaction =
+                    ReadOnlyTransactions.callInReadOnlyTransaction(emf, QueryQuotes::findAllQuotes);
+
+            Preconditions.checkArgument(queriedQuotesInReadOnlyTransaction.equals(insertedQuotes));
+
+            // The same quotes, streamed page by page, using keyset pagination (with a small page size, to get multiple pages)
+            ImmutableList<Model.Quote> queriedQuotesUsingKeysetPagination =
+                    emf.callInTransaction(em -> findAllQuotesUsingKeysetPagination(em, 7));
+
+            Preconditions.checkArgument(queriedQuotesUsingKeysetPagination.equals(insertedQuotes));
+
+            // The same quotes, queried in parallel per partition of the quote ID range, each partition in its own transaction
+            ImmutableList<Model.Quote> queriedQuotesInParallel = findAllQuotesInParallel(emf, 3);
+
+            Preconditions.checkArgument(queriedQuotesInParallel.equals(insertedQuotes));
+
             queriedQuotes.forEach(qt -> {
                 System.out.println();
                 System.out.println(qt);
@@ -101,7 +158,7 @@ public class QueryQuotes {
         return QuotesEntityManagerFactoryCreator.createEntityManagerFactory();
     }
 
-    private static ImmutableList<Model.Quote> findAllQuotes(EntityManager entityManager) {
+    public static ImmutableList<Model.Quote> findAllQuotes(EntityManager entityManager) {
         // Without the "join fetch", separate SQL queries would be generated per Quote, once the associated data is lazily loaded.
         // Clearly that would be quite undesirable.
         // The "join fetch" does what it says, namely retrieving the quote's author and subjects as well.
@@ -109,13 +166,14 @@ public class QueryQuotes {
                 select qt from Quote qt
                 join fetch qt.attributedTo
                 left join fetch qt.subjects""";
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(ql, Quote.class)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findAllQuotesUsingCriteriaApi(EntityManager entityManager) {
+    public static ImmutableList<Model.Quote> findAllQuotesUsingCriteriaApi(EntityManager entityManager) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
 
@@ -130,13 +188,14 @@ public class QueryQuotes {
 
         cq.select(quote);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(cq)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findAllQuotesOneByOne(EntityManager entityManager) {
+    public static ImmutableList<Model.Quote> findAllQuotesOneByOne(EntityManager entityManager) {
         // Native SQL query for quote IDs
         ConnectionFunction<Connection, List<Long>> quoteIdQuery = con -> {
             String sql = String.format("select %s from %s", Quote_.ID, "Quote");
@@ -152,21 +211,21 @@ public class QueryQuotes {
         };
         List<Long> quoteIds = entityManager.callWithConnection(quoteIdQuery);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
+
+        // Trying to avoid triggering lazy fetching, by fetching needed data upfront.
+        // The named entity graph is defined once, instead of creating an entity graph per quote.
+        Map<String, Object> loadGraphHint = Map.of(LOAD_GRAPH, QuoteQueryRegistry.getQuoteGraph(entityManager));
+
         // Finding the quotes, one by one, using method EntityManager.find
         // Clearly, this is quite inefficient, and should not be done in practice
         return quoteIds.stream()
-                .map(id -> {
-                    // Trying to avoid triggering lazy fetching, by fetching needed data upfront
-                    EntityGraph<Quote> quoteGraph = entityManager.createEntityGraph(Quote.class);
-                    quoteGraph.addSubgraph(Quote_.attributedTo);
-                    quoteGraph.addElementSubgraph(Quote_.subjects);
-                    return entityManager.find(quoteGraph, id);
-                })
-                .map(Quote::toModel)
+                .map(id -> entityManager.find(Quote.class, id, loadGraphHint))
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findAllQuotesUsingEntityGraph(EntityManager entityManager) {
+    public static ImmutableList<Model.Quote> findAllQuotesUsingEntityGraph(EntityManager entityManager) {
         // See https://www.baeldung.com/jpa-entity-graph
 
         String ql = "select qt from Quote qt";
@@ -175,14 +234,15 @@ public class QueryQuotes {
         quoteGraph.addSubgraph(Quote_.attributedTo);
         quoteGraph.addElementSubgraph(Quote_.subjects);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(ql, Quote.class)
                 .setHint(LOAD_GRAPH, quoteGraph)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findAllQuotesUsingCriteriaApiAndEntityGraph(EntityManager entityManager) {
+    public static ImmutableList<Model.Quote> findAllQuotesUsingCriteriaApiAndEntityGraph(EntityManager entityManager) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
 
@@ -194,13 +254,110 @@ public class QueryQuotes {
         quoteGraph.addSubgraph(Quote_.attributedTo);
         quoteGraph.addElementSubgraph(Quote_.subjects);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(cq)
                 .setHint(LOAD_GRAPH, quoteGraph)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findAllQuotesUsingNamedQuery(EntityManager entityManager) {
+        // Named JPQL query and named entity graph, parsed and validated at bootstrap (see QuoteQueryRegistry)
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return QuoteQueryRegistry.findAllQuotes(entityManager)
+                .getResultStream()
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findAllQuotesUsingNamedCriteriaQuery(EntityManager entityManager) {
+        // Criteria query built only once, when the EntityManagerFactory was created (see QuoteQueryRegistry)
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return QuoteQueryRegistry.findAllQuotesUsingCriteriaApi(entityManager)
+                .getResultStream()
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findAllQuotesUsingBatchFetching(EntityManager entityManager) {
+        // No "join fetch", so no quote row is repeated per subject. The lazy authors and subjects are loaded
+        // during model conversion, but not one quote at a time. Each lazy fetch initializes up to
+        // "hibernate.default_batch_fetch_size" pending authors (or subject lists) of the persistence context at once.
+        // So the number of SQL queries grows with the number of batches instead of the number of quotes.
+        // The result is not streamed, so that all quotes are in the persistence context before the first lazy fetch.
+        String ql = "select qt from Quote qt";
+
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return entityManager.createQuery(ql, Quote.class)
+                .getResultList()
+                .stream()
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
+    public static ImmutableList<Model.Quote> findAllQuotesUsingSubselectFetching(EntityManager entityManager) {
+        // Like method findAllQuotesUsingBatchFetching, except that the subjects of all quotes are loaded in one
+        // additional SQL query, which repeats the quote query as subquery. The authors are still batch fetched.
+        String ql = "select qt from Quote qt";
+
+        // Hibernate-specific. The fetch profile is only enabled for this query, and not for the entire Session.
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return entityManager.unwrap(Session.class)
+                .createSelectionQuery(ql, Quote.class)
+                .enableFetchProfile(Quote.SUBJECTS_BY_SUBSELECT)
+                .getResultList()
+                .stream()
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findAllQuotesUsingKeysetPagination(EntityManager entityManager, int pageSize) {
+        // The quotes are streamed lazily, page by page, clearing the persistence context after each page.
+        // Collecting them into one list defeats that purpose, of course, but it is done here to compare the results.
+        KeysetQuotePager quotePager = new KeysetQuotePager(entityManager, pageSize, KeysetQuotePager.DEFAULT_FETCH_SIZE);
+        try (Stream<Model.Quote> quoteStream = quotePager.streamAllQuotes()) {
+            return quoteStream.collect(ImmutableList.toImmutableList());
+        }
+    }
+
+    public static ImmutableList<Model.Quote> findAllQuotesInParallel(EntityManagerFactory entityManagerFactory, int concurrency) {
+        // Not taking an EntityManager, because each partition of quotes is queried with its own EntityManager
+        return new ParallelQuotesReader(entityManagerFactory, concurrency).findAllQuotes();
+    }
+
+    public static ImmutableList<Model.Quote> findAllQuotesUsingProjection(EntityManager entityManager) {
+        // No entities are selected, so the persistence context remains empty, and no (dirty-checking) entity
+        // snapshots are taken. Each row contains one subject of a quote, and the rows of a quote are aggregated
+        // into one Quote record. That is why the rows must be ordered by quote ID.
+        String ql = """
+                select qt.id as quote_id, qt.quoteText as quote_text, auth.id as author_id, auth.name as author_name,
+                    subj.id as subject_id, subj.subject as subject
+                from Quote qt
+                join qt.attributedTo auth
+                left join qt.subjects subj
+                order by qt.id""";
+        try (Stream<Tuple> quoteRows = entityManager.createQuery(ql, Tuple.class).getResultStream()) {
+            return new QuoteRowsCollector().collectQuotes(quoteRows);
+        }
+    }
+
+    public static ImmutableList<Model.Quote> findAllQuotesUsingJdbc(EntityManager entityManager) {
+        // The same rows as in findAllQuotesUsingProjection, but queried with plain SQL on the JDBC connection of the
+        // EntityManager, and mapped straight from the ResultSet. No query parsing, SQL translation or tuple creation.
+        ConnectionFunction<Connection, ImmutableList<Model.Quote>> quoteQuery = con -> {
+            String sql = QuoteResultSetCollector.SELECT_QUOTE_ROWS + " order by qt.id";
+            try (PreparedStatement ps = con.prepareStatement(sql);
+                 ResultSet rs = ps.executeQuery()) {
+                return new QuoteResultSetCollector().collectQuotes(rs);
+            }
+        };
+        // Hibernate does not see this query, so it does not flush pending changes before it (as it would do for JPQL
+        // queries in the default AUTO flush mode). Flushing them explicitly, so that the query sees them.
+        entityManager.flush();
+        return entityManager.callWithConnection(quoteQuery);
+    }
+
     private static List<Quote> insertQuotes(EntityManager entityManager) {
         QuotesInserter quotesInserter = new QuotesInserter(entityManager);
         return quotesInserter.insertQuotes();
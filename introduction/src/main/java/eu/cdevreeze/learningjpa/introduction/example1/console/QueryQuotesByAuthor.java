@@ -19,19 +19,26 @@ package eu.cdevreeze.learningjpa.introduction.example1.console;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Author_;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote_;
 import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.ConnectionFunction;
 import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Root;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * Example program querying for quotes by a given author. It uses an H2 in-memory database, and does all the
@@ -90,6 +97,29 @@ public class QueryQuotesByAuthor {
 
             Preconditions.checkArgument(queriedQuotesAtLowLevelUsingGraphHint.equals(filteredQuotes));
 
+            // The same queries, as named (JPQL and criteria) queries, defined once instead of per call
+            ImmutableList<Model.Quote> queriedQuotesUsingNamedQuery =
+                    emf.callInTransaction(em -> findQuotesByAuthorUsingNamedQuery(em, authorName));
+
+            Preconditions.checkArgument(queriedQuotesUsingNamedQuery.equals(filteredQuotes));
+
+            ImmutableList<Model.Quote> queriedQuotesUsingNamedCriteriaQuery =
+                    emf.callInTransaction(em -> findQuotesByAuthorUsingNamedCriteriaQuery(em, authorName));
+
+            Preconditions.checkArgument(queriedQuotesUsingNamedCriteriaQuery.equals(filteredQuotes));
+
+            // The same quotes, as projection query, without creating any entities
+            ImmutableList<Model.Quote> queriedQuotesUsingProjection =
+                    emf.callInTransaction(em -> findQuotesByAuthorUsingProjection(em, authorName));
+
+            Preconditions.checkArgument(queriedQuotesUsingProjection.equals(filteredQuotes));
+
+            // The same quotes, using plain JDBC, bypassing Hibernate
+            ImmutableList<Model.Quote> queriedQuotesUsingJdbc =
+                    emf.callInTransaction(em -> findQuotesByAuthorUsingJdbc(em, authorName));
+
+            Preconditions.checkArgument(queriedQuotesUsingJdbc.equals(filteredQuotes));
+
             queriedQuotes.forEach(qt -> {
                 System.out.println();
                 System.out.println(qt);
@@ -104,7 +134,7 @@ public class QueryQuotesByAuthor {
         return QuotesEntityManagerFactoryCreator.createEntityManagerFactory();
     }
 
-    private static ImmutableList<Model.Quote> findQuotesByAuthor(EntityManager entityManager, String authorName) {
+    public static ImmutableList<Model.Quote> findQuotesByAuthor(EntityManager entityManager, String authorName) {
         // Without the "join fetch", separate SQL queries would be generated per Quote, once the associated data is lazily loaded.
         // Clearly that would be quite undesirable.
         // The "join fetch" does what it says, namely retrieving the quote's author and subjects as well.
@@ -113,14 +143,15 @@ public class QueryQuotesByAuthor {
                 join fetch qt.attributedTo
                 left join fetch qt.subjects
                 where qt.attributedTo.name = :authorName""";
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(ql, Quote.class)
                 .setParameter("authorName", authorName)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findQuotesByAuthorUsingCriteriaApi(EntityManager entityManager, String authorName) {
+    public static ImmutableList<Model.Quote> findQuotesByAuthorUsingCriteriaApi(EntityManager entityManager, String authorName) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
 
@@ -137,14 +168,15 @@ public class QueryQuotesByAuthor {
         cq.select(quote);
 
         // Below, we could have done without the parameter, by using "cb.literal" instead of "cb.parameter" above.
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(cq)
                 .setParameter("authName", authorName)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findQuotesByAuthorUsingEntityGraph(EntityManager entityManager, String authorName) {
+    public static ImmutableList<Model.Quote> findQuotesByAuthorUsingEntityGraph(EntityManager entityManager, String authorName) {
         // See https://www.baeldung.com/jpa-entity-graph
 
         String ql = "select qt from Quote qt where qt.attributedTo.name = :authorName";
@@ -153,15 +185,16 @@ public class QueryQuotesByAuthor {
         quoteGraph.addSubgraph(Quote_.attributedTo);
         quoteGraph.addElementSubgraph(Quote_.subjects);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(ql, Quote.class)
                 .setParameter("authorName", authorName)
                 .setHint(LOAD_GRAPH, quoteGraph)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findQuotesByAuthorUsingCriteriaApiAndEntityGraph(EntityManager entityManager, String authorName) {
+    public static ImmutableList<Model.Quote> findQuotesByAuthorUsingCriteriaApiAndEntityGraph(EntityManager entityManager, String authorName) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
 
@@ -174,15 +207,16 @@ public class QueryQuotesByAuthor {
         quoteGraph.addSubgraph(Quote_.attributedTo);
         quoteGraph.addElementSubgraph(Quote_.subjects);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(cq)
                 .setParameter("authName", authorName)
                 .setHint(LOAD_GRAPH, quoteGraph)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findQuotesByAuthorVerboselyUsingEntityGraph(EntityManager entityManager, String authorName) {
+    public static ImmutableList<Model.Quote> findQuotesByAuthorVerboselyUsingEntityGraph(EntityManager entityManager, String authorName) {
         // See https://www.baeldung.com/jpa-entity-graph
 
         // This is a verbose low level JPQL query that is much closer to the generated native SQL
@@ -196,14 +230,65 @@ public class QueryQuotesByAuthor {
         quoteGraph.addSubgraph(Quote_.attributedTo);
         quoteGraph.addElementSubgraph(Quote_.subjects);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(ql, Quote.class)
                 .setParameter("authorName", authorName)
                 .setHint(LOAD_GRAPH, quoteGraph)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findQuotesByAuthorUsingNamedQuery(EntityManager entityManager, String authorName) {
+        // Named JPQL query and named entity graph, parsed and validated at bootstrap (see QuoteQueryRegistry)
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return QuoteQueryRegistry.findQuotesByAuthor(entityManager, authorName)
+                .getResultStream()
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
+    public static ImmutableList<Model.Quote> findQuotesByAuthorUsingNamedCriteriaQuery(EntityManager entityManager, String authorName) {
+        // Criteria query built only once, when the EntityManagerFactory was created (see QuoteQueryRegistry)
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return QuoteQueryRegistry.findQuotesByAuthorUsingCriteriaApi(entityManager, authorName)
+                .getResultStream()
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findQuotesByAuthorUsingProjection(EntityManager entityManager, String authorName) {
+        // Projection query, not creating any entities (see QueryQuotes.findAllQuotesUsingProjection)
+        String ql = """
+                select qt.id as quote_id, qt.quoteText as quote_text, auth.id as author_id, auth.name as author_name,
+                    subj.id as subject_id, subj.subject as subject
+                from Quote qt
+                join qt.attributedTo auth
+                left join qt.subjects subj
+                where auth.name = :authorName
+                order by qt.id""";
+        try (Stream<Tuple> quoteRows = entityManager.createQuery(ql, Tuple.class)
+                .setParameter("authorName", authorName)
+                .getResultStream()) {
+            return new QuoteRowsCollector().collectQuotes(quoteRows);
+        }
+    }
+
+    public static ImmutableList<Model.Quote> findQuotesByAuthorUsingJdbc(EntityManager entityManager, String authorName) {
+        // Plain JDBC query, bypassing Hibernate (see QueryQuotes.findAllQuotesUsingJdbc)
+        ConnectionFunction<Connection, ImmutableList<Model.Quote>> quoteQuery = con -> {
+            String sql = QuoteResultSetCollector.SELECT_QUOTE_ROWS + " where auth.name = ? order by qt.id";
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setString(1, authorName);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return new QuoteResultSetCollector().collectQuotes(rs);
+                }
+            }
+        };
+        entityManager.flush(); // See QueryQuotes.findAllQuotesUsingJdbc
+        return entityManager.callWithConnection(quoteQuery);
+    }
+
     private static List<Quote> insertQuotes(EntityManager entityManager) {
         QuotesInserter quotesInserter = new QuotesInserter(entityManager);
         return quotesInserter.insertQuotes();
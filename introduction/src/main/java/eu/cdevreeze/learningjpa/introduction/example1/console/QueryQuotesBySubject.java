@@ -18,18 +18,27 @@ package eu.cdevreeze.learningjpa.introduction.example1.console;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote_;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject_;
 import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.ConnectionFunction;
 import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.*;
+import org.hibernate.Session;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 /**
  * Example program querying for quotes for a given subject. It uses an H2 in-memory database, and does all the
@@ -39,6 +48,11 @@ import java.util.Objects;
  */
 public class QueryQuotesBySubject {
 
+    /**
+     * The maximum number of quote IDs per "in" list when fetching quotes by ID.
+     */
+    public static final int MAX_IN_LIST_SIZE = 1000;
+
     private static final String LOAD_GRAPH = "jakarta.persistence.loadgraph";
 
     public static void main(String[] args) {
@@ -88,6 +102,47 @@ public class QueryQuotesBySubject {
 
             Preconditions.checkArgument(queriedQuotesUsingInAndGraphHint.equals(filteredQuotes));
 
+            // The same queries, as named (JPQL and criteria) queries, defined once instead of per call
+            ImmutableList<Model.Quote> queriedQuotesUsingNamedQuery =
+                    emf.callInTransaction(em -> findQuotesBySubjectUsingNamedQuery(em, subject));
+
+            Preconditions.checkArgument(queriedQuotesUsingNamedQuery.equals(filteredQuotes));
+
+            ImmutableList<Model.Quote> queriedQuotesUsingNamedCriteriaQuery =
+                    emf.callInTransaction(em -> findQuotesBySubjectUsingNamedCriteriaQuery(em, subject));
+
+            Preconditions.checkArgument(queriedQuotesUsingNamedCriteriaQuery.equals(filteredQuotes));
+
+            // The same quotes, first querying their IDs, and then fetching the quotes by ID
+            ImmutableList<Model.Quote> queriedQuotesInTwoPhases =
+                    emf.callInTransaction(em -> findQuotesBySubjectInTwoPhases(em, subject));
+
+            Preconditions.checkArgument(queriedQuotesInTwoPhases.equals(filteredQuotes));
+
+            // The same two phases, in one query, with the ID query as subquery
+            ImmutableList<Model.Quote> queriedQuotesUsingIdSubquery =
+                    emf.callInTransaction(em -> findQuotesBySubjectUsingIdSubquery(em, subject));
+
+            Preconditions.checkArgument(queriedQuotesUsingIdSubquery.equals(filteredQuotes));
+
+            // The same quotes, without join fetches, lazily loading the subjects in one subselect query
+            ImmutableList<Model.Quote> queriedQuotesUsingSubselectFetching =
+                    emf.callInTransaction(em -> findQuotesBySubjectUsingSubselectFetching(em, subject));
+
+            Preconditions.checkArgument(queriedQuotesUsingSubselectFetching.equals(filteredQuotes));
+
+            // The same quotes, as projection query, without creating any entities
+            ImmutableList<Model.Quote> queriedQuotesUsingProjection =
+                    emf.callInTransaction(em -> findQuotesBySubjectUsingProjection(em, subject));
+
+            Preconditions.checkArgument(queriedQuotesUsingProjection.equals(filteredQuotes));
+
+            // The same quotes, using plain JDBC, bypassing Hibernate
+            ImmutableList<Model.Quote> queriedQuotesUsingJdbc =
+                    emf.callInTransaction(em -> findQuotesBySubjectUsingJdbc(em, subject));
+
+            Preconditions.checkArgument(queriedQuotesUsingJdbc.equals(filteredQuotes));
+
             queriedQuotes.forEach(qt -> {
                 System.out.println();
                 System.out.println(qt);
@@ -102,7 +157,7 @@ public class QueryQuotesBySubject {
         return QuotesEntityManagerFactoryCreator.createEntityManagerFactory();
     }
 
-    private static ImmutableList<Model.Quote> findQuotesBySubject(EntityManager entityManager, String subject) {
+    public static ImmutableList<Model.Quote> findQuotesBySubject(EntityManager entityManager, String subject) {
         // Without the "join fetch", separate SQL queries would be generated per Quote, once the associated data is lazily loaded.
         // Clearly that would be quite undesirable.
         // The "join fetch" does what it says, namely retrieving the quote's author and subjects as well.
@@ -113,14 +168,15 @@ public class QueryQuotesBySubject {
                 left join fetch qt.subjects
                 join fetch qt.attributedTo
                 where subj.subject = :subject""";
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(ql, Quote.class)
                 .setParameter("subject", subject)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findQuotesBySubjectUsingCriteriaApi(EntityManager entityManager, String subject) {
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingCriteriaApi(EntityManager entityManager, String subject) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
 
@@ -138,14 +194,15 @@ public class QueryQuotesBySubject {
         cq.select(quote);
 
         // Below, we could have done without the parameter, by using "cb.literal" instead of "cb.parameter" above.
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(cq)
                 .setParameter("subject", subject)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findQuotesBySubjectUsingEntityGraph(EntityManager entityManager, String subject) {
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingEntityGraph(EntityManager entityManager, String subject) {
         // See https://www.baeldung.com/jpa-entity-graph
 
         // This JPQL query is quite simple, due to the use of identification variable "subj".
@@ -161,15 +218,16 @@ public class QueryQuotesBySubject {
         quoteGraph.addSubgraph(Quote_.attributedTo);
         quoteGraph.addElementSubgraph(Quote_.subjects);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(ql, Quote.class)
                 .setParameter("subject", subject)
                 .setHint(LOAD_GRAPH, quoteGraph)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findQuotesBySubjectUsingCriteriaApiAndEntityGraph(EntityManager entityManager, String subject) {
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingCriteriaApiAndEntityGraph(EntityManager entityManager, String subject) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
 
@@ -183,15 +241,16 @@ public class QueryQuotesBySubject {
         quoteGraph.addSubgraph(Quote_.attributedTo);
         quoteGraph.addElementSubgraph(Quote_.subjects);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(cq)
                 .setParameter("subject", subject)
                 .setHint(LOAD_GRAPH, quoteGraph)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static ImmutableList<Model.Quote> findQuotesBySubjectUsingInAndUsingEntityGraph(EntityManager entityManager, String subject) {
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingInAndUsingEntityGraph(EntityManager entityManager, String subject) {
         // See https://www.baeldung.com/jpa-entity-graph
 
         // Almost equivalent to the JPQL query above that uses a "left join".
@@ -205,14 +264,156 @@ public class QueryQuotesBySubject {
         quoteGraph.addSubgraph(Quote_.attributedTo);
         quoteGraph.addElementSubgraph(Quote_.subjects);
 
+        ModelConversionContext conversionContext = new ModelConversionContext();
         return entityManager.createQuery(ql, Quote.class)
                 .setParameter("subject", subject)
                 .setHint(LOAD_GRAPH, quoteGraph)
                 .getResultStream()
-                .map(Quote::toModel)
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingNamedQuery(EntityManager entityManager, String subject) {
+        // Named JPQL query and named entity graph, parsed and validated at bootstrap (see QuoteQueryRegistry)
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return QuoteQueryRegistry.findQuotesBySubject(entityManager, subject)
+                .getResultStream()
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingNamedCriteriaQuery(EntityManager entityManager, String subject) {
+        // Criteria query built only once, when the EntityManagerFactory was created (see QuoteQueryRegistry)
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return QuoteQueryRegistry.findQuotesBySubjectUsingCriteriaApi(entityManager, subject)
+                .getResultStream()
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findQuotesBySubjectInTwoPhases(EntityManager entityManager, String subject) {
+        // The single-query variants above join the subjects twice, once for filtering and once for fetching, so the
+        // database has to produce (and Hibernate has to deduplicate) a row per combination of matching and fetched subject.
+        // Here the filtering and the fetching are done by separate queries instead.
+
+        // Phase 1: a lean query only returning the IDs of the matching quotes, using the index on the subject name
+        List<Long> quoteIds = entityManager.createQuery("""
+                                select qt.id from Quote qt
+                                join qt.subjects subj
+                                where subj.subject = :subject
+                                order by qt.id""",
+                        Long.class)
+                .setParameter("subject", subject)
+                .getResultList();
+
+        // Phase 2: fetching those quotes, along with their authors and all their subjects, in as few queries as possible
+        String ql = """
+                select qt from Quote qt
+                join fetch qt.attributedTo
+                left join fetch qt.subjects
+                where qt.id in :quoteIds
+                order by qt.id""";
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        ImmutableList.Builder<Model.Quote> quotes = ImmutableList.builder();
+        for (List<Long> quoteIdBatch : Iterables.partition(quoteIds, MAX_IN_LIST_SIZE)) {
+            // Not using getResultStream, which would keep each batch's JDBC resources open until the EntityManager is closed
+            entityManager.createQuery(ql, Quote.class)
+                    .setParameter("quoteIds", quoteIdBatch)
+                    .getResultList()
+                    .stream()
+                    .map(conversionContext::toModel)
+                    .forEach(quotes::add);
+        }
+        return quotes.build();
+    }
+
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingIdSubquery(EntityManager entityManager, String subject) {
+        // Like the two-phase query above, but in one round trip, with the lean ID query as subquery.
+        // The database then does the ID-then-fetch itself, without long "in" lists to parse and bind.
+        String ql = """
+                select qt from Quote qt
+                join fetch qt.attributedTo
+                left join fetch qt.subjects
+                where qt.id in (
+                    select qt2.id from Quote qt2
+                    join qt2.subjects subj
+                    where subj.subject = :subject
+                )
+                order by qt.id""";
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return entityManager.createQuery(ql, Quote.class)
+                .setParameter("subject", subject)
+                .getResultStream()
+                .map(conversionContext::toModel)
                 .collect(ImmutableList.toImmutableList());
     }
 
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingSubselectFetching(EntityManager entityManager, String subject) {
+        // The quote query only joins the subjects to filter on them. All subjects of the matching quotes are then
+        // loaded in one more SQL query, which repeats the quote query as subquery. The authors are batch fetched.
+        // So there is no cartesian product of quotes and subjects, and no long "in" list of quote IDs.
+        String ql = """
+                select qt from Quote qt
+                join qt.subjects subj
+                where subj.subject = :subject
+                order by qt.id""";
+        // Hibernate-specific. The fetch profile is only enabled for this query, and not for the entire Session.
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return entityManager.unwrap(Session.class)
+                .createSelectionQuery(ql, Quote.class)
+                .setParameter("subject", subject)
+                .enableFetchProfile(Quote.SUBJECTS_BY_SUBSELECT)
+                .getResultList()
+                .stream()
+                .map(conversionContext::toModel)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingProjection(EntityManager entityManager, String subject) {
+        // Projection query, not creating any entities (see QueryQuotes.findAllQuotesUsingProjection).
+        // The subject is filtered on in a subquery, because all subjects of the matching quotes must be returned.
+        String ql = """
+                select qt.id as quote_id, qt.quoteText as quote_text, auth.id as author_id, auth.name as author_name,
+                    subj.id as subject_id, subj.subject as subject
+                from Quote qt
+                join qt.attributedTo auth
+                left join qt.subjects subj
+                where qt.id in (
+                    select qt2.id from Quote qt2
+                    join qt2.subjects subj2
+                    where subj2.subject = :subject
+                )
+                order by qt.id""";
+        try (Stream<Tuple> quoteRows = entityManager.createQuery(ql, Tuple.class)
+                .setParameter("subject", subject)
+                .getResultStream()) {
+            return new QuoteRowsCollector().collectQuotes(quoteRows);
+        }
+    }
+
+    public static ImmutableList<Model.Quote> findQuotesBySubjectUsingJdbc(EntityManager entityManager, String subject) {
+        // Plain JDBC query, bypassing Hibernate (see QueryQuotes.findAllQuotesUsingJdbc).
+        // As in findQuotesBySubjectUsingProjection, the subject is filtered on in a subquery.
+        ConnectionFunction<Connection, ImmutableList<Model.Quote>> quoteQuery = con -> {
+            String sql = QuoteResultSetCollector.SELECT_QUOTE_ROWS + """
+
+                    where qt.id in (
+                        select qs2.quoteId from QuoteSubject qs2
+                        join Subject subj2 on subj2.id = qs2.subjectId
+                        where subj2.subject = ?
+                    )
+                    order by qt.id""";
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setString(1, subject);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return new QuoteResultSetCollector().collectQuotes(rs);
+                }
+            }
+        };
+        entityManager.flush(); // See QueryQuotes.findAllQuotesUsingJdbc
+        return entityManager.callWithConnection(quoteQuery);
+    }
+
     private static List<Quote> insertQuotes(EntityManager entityManager) {
         QuotesInserter quotesInserter = new QuotesInserter(entityManager);
         return quotesInserter.insertQuotes();
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic generator of synthetic quotes, for testing and benchmarking against large numbers of quotes.
+ * The generated quotes have no IDs, so they can be inserted with a {@link BulkQuotesInserter}.
+ * <p>
+ * Authors and subjects are chosen according to Zipf distributions, so a few authors and subjects occur in many
+ * quotes, and most of them in only a few quotes. The skew (the Zipf exponent) is configurable, where 0 means
+ * a uniform distribution. The first author (and subject) is the most frequent one, and so on.
+ * <p>
+ * Quote text lengths follow a log-normal distribution around a configurable median length, with a long tail,
+ * capped at {@link #MAX_QUOTE_TEXT_LENGTH} characters (the column length of the quote text).
+ * <p>
+ * Each quote only depends on the seed and its index, so the same quotes are generated each time, in any order.
+ * Quotes are generated lazily, so millions of quotes can be streamed into the database without keeping them in memory.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QuoteCorpusGenerator {
+
+    public static final int MAX_QUOTE_TEXT_LENGTH = 5000;
+
+    private static final int MIN_QUOTE_TEXT_LENGTH = 16;
+    private static final double QUOTE_TEXT_LENGTH_SIGMA = 0.8;
+
+    private static final ImmutableList<String> FIRST_NAMES = ImmutableList.of(
+            "Ada", "Alan", "Barbara", "Blaise", "Carl", "Clara", "David", "Edsger", "Emmy", "Frances",
+            "George", "Grace", "Hannah", "Isaac", "Johanna", "John", "Katherine", "Leonhard", "Lise", "Marie",
+            "Niels", "Rosalind", "Simone", "Tony", "Wim"
+    );
+
+    private static final ImmutableList<String> LAST_NAMES = ImmutableList.of(
+            "Arendt", "Babbage", "Curie", "de Vries", "Dijkstra", "Euler", "Feynman", "Franklin", "Gauss", "Hopper",
+            "Hume", "Janssen", "Kant", "Knuth", "Lovelace", "Meitner", "Noether", "Pascal", "Russell", "Spinoza",
+            "Turing", "van Dam", "Weil", "Wittgenstein", "Yonath"
+    );
+
+    private static final ImmutableList<String> SUBJECT_NOUNS = ImmutableList.of(
+            "life", "truth", "freedom", "knowledge", "science", "love", "power", "change", "time", "wisdom",
+            "courage", "money", "nature", "work", "happiness", "peace", "learning", "art", "health", "justice"
+    );
+
+    private static final ImmutableList<String> SUBJECT_ADJECTIVES = ImmutableList.of(
+            "personal", "political", "inner", "human", "modern", "social", "moral", "public", "creative", "natural"
+    );
+
+    private static final ImmutableList<String> WORDS = ImmutableList.of(
+            "the", "of", "and", "a", "to", "in", "is", "you", "that", "it", "he", "was", "for", "on", "are", "as",
+            "with", "they", "be", "at", "one", "have", "this", "from", "or", "had", "by", "not", "but", "what",
+            "all", "were", "we", "when", "your", "can", "said", "there", "use", "each", "which", "she", "do",
+            "how", "their", "if", "will", "up", "other", "about", "out", "many", "then", "them", "these", "so",
+            "some", "would", "make", "like", "into", "time", "has", "look", "more", "write", "go", "see", "number",
+            "way", "could", "people", "than", "first", "water", "been", "who", "now", "find", "long", "down",
+            "day", "did", "get", "come", "made", "may", "part", "truth", "world", "mind", "life", "freedom",
+            "never", "always", "nothing", "everything", "power", "fear", "hope", "reason", "nature", "change"
+    );
+
+    /**
+     * Generator settings. The skews are Zipf exponents, where 0 means a uniform distribution and 1 is typical.
+     */
+    public record Settings(
+            long seed,
+            int authorCount,
+            double authorSkew,
+            int subjectCount,
+            double subjectSkew,
+            int maxSubjectsPerQuote,
+            int medianQuoteTextLength
+    ) {
+
+        public Settings {
+            Preconditions.checkArgument(authorCount > 0);
+            Preconditions.checkArgument(authorSkew >= 0);
+            Preconditions.checkArgument(subjectCount > 0);
+            Preconditions.checkArgument(subjectSkew >= 0);
+            Preconditions.checkArgument(maxSubjectsPerQuote >= 0 && maxSubjectsPerQuote <= subjectCount);
+            Preconditions.checkArgument(
+                    medianQuoteTextLength >= MIN_QUOTE_TEXT_LENGTH && medianQuoteTextLength <= MAX_QUOTE_TEXT_LENGTH);
+        }
+
+        /**
+         * Returns the default settings: 10000 authors and 1000 subjects, both with skew 1, at most 3 subjects per quote,
+         * and a median quote text length of 120 characters.
+         */
+        public static Settings defaults(long seed) {
+            return new Settings(seed, 10_000, 1.0, 1_000, 1.0, 3, 120);
+        }
+    }
+
+    private final Settings settings;
+    private final ImmutableList<Model.Author> authors;
+    private final ImmutableList<Model.Subject> subjects;
+    private final ZipfDistribution authorDistribution;
+    private final ZipfDistribution subjectDistribution;
+
+    public QuoteCorpusGenerator(Settings settings) {
+        this.settings = settings;
+        this.authors = IntStream.range(0, settings.authorCount())
+                .mapToObj(i -> new Model.Author(OptionalLong.empty(), authorName(i)))
+                .collect(ImmutableList.toImmutableList());
+        this.subjects = IntStream.range(0, settings.subjectCount())
+                .mapToObj(i -> new Model.Subject(OptionalLong.empty(), subjectName(i)))
+                .collect(ImmutableList.toImmutableList());
+        this.authorDistribution = new ZipfDistribution(settings.authorCount(), settings.authorSkew());
+        this.subjectDistribution = new ZipfDistribution(settings.subjectCount(), settings.subjectSkew());
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Returns the authors that can occur in generated quotes, from most to least frequent.
+     */
+    public ImmutableList<Model.Author> getAuthors() {
+        return authors;
+    }
+
+    /**
+     * Returns the subjects that can occur in generated quotes, from most to least frequent.
+     */
+    public ImmutableList<Model.Subject> getSubjects() {
+        return subjects;
+    }
+
+    /**
+     * Returns the quote with the given (zero-based) index, which is the same quote each time for the same settings.
+     */
+    public Model.Quote generateQuote(long index) {
+        Preconditions.checkArgument(index >= 0);
+        SplittableRandom random = new SplittableRandom(settings.seed() * 0x9E3779B97F4A7C15L + index);
+
+        Model.Author author = authors.get(authorDistribution.sample(random));
+
+        int subjectCount = random.nextInt(settings.maxSubjectsPerQuote() + 1);
+        Set<Model.Subject> subjectSet = new LinkedHashSet<>();
+        while (subjectSet.size() < subjectCount) {
+            // Drawing again in case of duplicates
+            subjectSet.add(subjects.get(subjectDistribution.sample(random)));
+        }
+
+        return new Model.Quote(OptionalLong.empty(), generateQuoteText(random), author, ImmutableSet.copyOf(subjectSet));
+    }
+
+    /**
+     * Returns a lazy stream of the first quoteCount quotes.
+     */
+    public Stream<Model.Quote> generateQuotes(long quoteCount) {
+        Preconditions.checkArgument(quoteCount >= 0);
+        return LongStream.range(0, quoteCount).mapToObj(this::generateQuote);
+    }
+
+    private String generateQuoteText(SplittableRandom random) {
+        double logLength = Math.log(settings.medianQuoteTextLength()) + QUOTE_TEXT_LENGTH_SIGMA * random.nextGaussian();
+        int length = (int) Math.clamp(Math.round(Math.exp(logLength)), MIN_QUOTE_TEXT_LENGTH, MAX_QUOTE_TEXT_LENGTH);
+
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length - 1) {
+            String word = WORDS.get(random.nextInt(WORDS.size()));
+            if (!sb.isEmpty()) {
+                sb.append(' ');
+            } else {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            sb.append(word);
+        }
+        sb.setLength(length - 1);
+        return sb.toString().stripTrailing() + ".";
+    }
+
+    private static String authorName(int index) {
+        int nameCount = FIRST_NAMES.size() * LAST_NAMES.size();
+        String name = FIRST_NAMES.get(index % FIRST_NAMES.size()) + " " +
+                LAST_NAMES.get((index / FIRST_NAMES.size()) % LAST_NAMES.size());
+        return (index < nameCount) ? name : name + " " + (index / nameCount + 1);
+    }
+
+    private static String subjectName(int index) {
+        int nounCount = SUBJECT_NOUNS.size();
+        String noun = SUBJECT_NOUNS.get(index % nounCount);
+        if (index < nounCount) {
+            return noun;
+        }
+        int adjectiveIndex = index / nounCount - 1;
+        String subject = SUBJECT_ADJECTIVES.get(adjectiveIndex % SUBJECT_ADJECTIVES.size()) + " " + noun;
+        return (adjectiveIndex < SUBJECT_ADJECTIVES.size()) ? subject : subject + " " + (adjectiveIndex / SUBJECT_ADJECTIVES.size() + 1);
+    }
+
+    /**
+     * Zipf distribution over ranks 0 to n - 1, sampled by binary search in the cumulative probabilities.
+     */
+    private static final class ZipfDistribution {
+
+        private final double[] cumulativeProbabilities;
+
+        ZipfDistribution(int n, double exponent) {
+            cumulativeProbabilities = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cumulativeProbabilities[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulativeProbabilities[i] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+            int rank = (index >= 0) ? index : -index - 1;
+            return Math.min(rank, cumulativeProbabilities.length - 1);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+
+import java.util.OptionalLong;
+
+/**
+ * Parser of one JSON object per quote, in the format written by {@link QuotesExporter} (one NDJSON line).
+ * Fields may occur in any order, and unknown fields are skipped. The "id" fields are optional; if present,
+ * their values are kept in the resulting quote, but inserters like {@link BulkQuotesInserter} ignore them.
+ * <p>
+ * This is a small hand-written parser for just this object shape, so no JSON library is needed. Strings without
+ * escape sequences are taken from the input as substrings. Invalid input leads to an {@link IllegalArgumentException}.
+ * <p>
+ * Instances are not thread-safe, but cheap, so each thread should create its own instance.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QuoteJsonParser {
+
+    private String json;
+    private int pos;
+
+    /**
+     * Parses the given JSON object as a quote.
+     */
+    public Model.Quote parseQuote(String json) {
+        this.json = json;
+        this.pos = 0;
+
+        Model.Quote quote = readQuote();
+        skipWhitespace();
+        if (pos < json.length()) {
+            throw error("Unexpected content after the quote object");
+        }
+        return quote;
+    }
+
+    private Model.Quote readQuote() {
+        OptionalLong id = OptionalLong.empty();
+        String quoteText = null;
+        Model.Author author = null;
+        ImmutableSet<Model.Subject> subjects = ImmutableSet.of();
+
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                String fieldName = readFieldName();
+                switch (fieldName) {
+                    case "id" -> id = OptionalLong.of(readLong());
+                    case "quoteText" -> quoteText = readString();
+                    case "author" -> author = readAuthor();
+                    case "subjects" -> subjects = readSubjects();
+                    default -> skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+
+        if (quoteText == null || author == null) {
+            throw error("Missing quoteText or author");
+        }
+        return new Model.Quote(id, quoteText, author, subjects);
+    }
+
+    private Model.Author readAuthor() {
+        OptionalLong id = OptionalLong.empty();
+        String name = null;
+
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                String fieldName = readFieldName();
+                switch (fieldName) {
+                    case "id" -> id = OptionalLong.of(readLong());
+                    case "name" -> name = readString();
+                    default -> skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+
+        if (name == null) {
+            throw error("Missing author name");
+        }
+        return new Model.Author(id, name);
+    }
+
+    private ImmutableSet<Model.Subject> readSubjects() {
+        ImmutableSet.Builder<Model.Subject> subjects = ImmutableSet.builder();
+        expect('[');
+        if (!tryConsume(']')) {
+            do {
+                subjects.add(readSubject());
+            } while (tryConsume(','));
+            expect(']');
+        }
+        return subjects.build();
+    }
+
+    private Model.Subject readSubject() {
+        OptionalLong id = OptionalLong.empty();
+        String subject = null;
+
+        expect('{');
+        if (!tryConsume('}')) {
+            do {
+                String fieldName = readFieldName();
+                switch (fieldName) {
+                    case "id" -> id = OptionalLong.of(readLong());
+                    case "subject" -> subject = readString();
+                    default -> skipValue();
+                }
+            } while (tryConsume(','));
+            expect('}');
+        }
+
+        if (subject == null) {
+            throw error("Missing subject");
+        }
+        return new Model.Subject(id, subject);
+    }
+
+    private String readFieldName() {
+        String fieldName = readString();
+        expect(':');
+        return fieldName;
+    }
+
+    private String readString() {
+        expect('"');
+        int start = pos;
+        // Fast path: no escape sequences, so the string is a substring of the input
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c == '"') {
+                String s = json.substring(start, pos);
+                pos += 1;
+                return s;
+            } else if (c == '\\') {
+                break;
+            }
+            pos += 1;
+        }
+
+        StringBuilder sb = new StringBuilder(json.length() - start);
+        sb.append(json, start, pos);
+        while (pos < json.length()) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            } else if (c != '\\') {
+                sb.append(c);
+            } else if (pos < json.length()) {
+                char escaped = json.charAt(pos++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> sb.append(escaped);
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > json.length()) {
+                            throw error("Incomplete unicode escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(json, pos, pos + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("Invalid escape sequence");
+                }
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private long readLong() {
+        skipWhitespace();
+        int start = pos;
+        if (pos < json.length() && json.charAt(pos) == '-') {
+            pos += 1;
+        }
+        while (pos < json.length() && Character.isDigit(json.charAt(pos))) {
+            pos += 1;
+        }
+        try {
+            return Long.parseLong(json, start, pos, 10);
+        } catch (NumberFormatException e) {
+            throw error("Invalid integer");
+        }
+    }
+
+    private void skipValue() {
+        skipWhitespace();
+        if (pos >= json.length()) {
+            throw error("Missing value");
+        }
+        char c = json.charAt(pos);
+        switch (c) {
+            case '"' -> readString();
+            case '{' -> {
+                expect('{');
+                if (!tryConsume('}')) {
+                    do {
+                        readFieldName();
+                        skipValue();
+                    } while (tryConsume(','));
+                    expect('}');
+                }
+            }
+            case '[' -> {
+                expect('[');
+                if (!tryConsume(']')) {
+                    do {
+                        skipValue();
+                    } while (tryConsume(','));
+                    expect(']');
+                }
+            }
+            default -> {
+                // Number, true, false or null
+                int start = pos;
+                while (pos < json.length() && ",}] \t\r\n".indexOf(json.charAt(pos)) < 0) {
+                    pos += 1;
+                }
+                if (pos == start) {
+                    throw error("Invalid value");
+                }
+            }
+        }
+    }
+
+    private void expect(char c) {
+        if (!tryConsume(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private boolean tryConsume(char c) {
+        skipWhitespace();
+        if (pos < json.length() && json.charAt(pos) == c) {
+            pos += 1;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos += 1;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos);
+    }
+}
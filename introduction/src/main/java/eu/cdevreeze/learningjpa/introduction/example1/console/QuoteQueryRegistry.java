@@ -0,0 +1,168 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author_;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote_;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject_;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Registry of the quote queries and entity graphs that are defined once per EntityManagerFactory, instead of
+ * once per call. It hands out ready-to-execute typed queries, only needing their parameters to be bound.
+ * <p>
+ * The JPQL queries and the entity graph are defined as named queries and named entity graph in entity
+ * {@link Quote}, so they are parsed and validated when the persistence unit is bootstrapped. The criteria queries
+ * are built only once, when the EntityManagerFactory is created (see {@link QuotesEntityManagerFactoryCreator}),
+ * and are then added to the EntityManagerFactory as named queries as well.
+ * <p>
+ * Creating a named query copies the already interpreted query, so there is no query string to parse, and no
+ * criteria tree to build. Note that Hibernate also caches interpreted JPQL query strings (in its query plan cache),
+ * but by default not criteria queries.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QuoteQueryRegistry {
+
+    public static final String FIND_ALL_QUOTES_USING_CRITERIA_API = "findAllQuotesUsingCriteriaApi";
+    public static final String FIND_QUOTES_BY_AUTHOR_USING_CRITERIA_API = "findQuotesByAuthorUsingCriteriaApi";
+    public static final String FIND_QUOTES_BY_SUBJECT_USING_CRITERIA_API = "findQuotesBySubjectUsingCriteriaApi";
+
+    private static final String LOAD_GRAPH = "jakarta.persistence.loadgraph";
+
+    private QuoteQueryRegistry() {
+    }
+
+    /**
+     * Returns the named entity graph of a quote along with its author and subjects.
+     */
+    public static EntityGraph<?> getQuoteGraph(EntityManager entityManager) {
+        return entityManager.getEntityGraph(Quote.WITH_AUTHOR_AND_SUBJECTS);
+    }
+
+    /**
+     * Returns the named JPQL query for all quotes, with their authors and subjects as load graph.
+     */
+    public static TypedQuery<Quote> findAllQuotes(EntityManager entityManager) {
+        return entityManager.createNamedQuery(Quote_.QUERY_FIND_ALL_QUOTES, Quote.class)
+                .setHint(LOAD_GRAPH, getQuoteGraph(entityManager));
+    }
+
+    /**
+     * Returns the named JPQL query for the quotes of the given author, with their authors and subjects as load graph.
+     */
+    public static TypedQuery<Quote> findQuotesByAuthor(EntityManager entityManager, String authorName) {
+        return entityManager.createNamedQuery(Quote_.QUERY_FIND_QUOTES_BY_AUTHOR_NAME, Quote.class)
+                .setParameter("authorName", authorName)
+                .setHint(LOAD_GRAPH, getQuoteGraph(entityManager));
+    }
+
+    /**
+     * Returns the named JPQL query for the quotes having the given subject, with their authors and subjects as load graph.
+     */
+    public static TypedQuery<Quote> findQuotesBySubject(EntityManager entityManager, String subject) {
+        return entityManager.createNamedQuery(Quote_.QUERY_FIND_QUOTES_BY_SUBJECT_NAME, Quote.class)
+                .setParameter("subject", subject)
+                .setHint(LOAD_GRAPH, getQuoteGraph(entityManager));
+    }
+
+    /**
+     * Returns the named criteria query for all quotes, fetching their authors and subjects.
+     */
+    public static TypedQuery<Quote> findAllQuotesUsingCriteriaApi(EntityManager entityManager) {
+        return entityManager.createNamedQuery(FIND_ALL_QUOTES_USING_CRITERIA_API, Quote.class);
+    }
+
+    /**
+     * Returns the named criteria query for the quotes of the given author, fetching their authors and subjects.
+     */
+    public static TypedQuery<Quote> findQuotesByAuthorUsingCriteriaApi(EntityManager entityManager, String authorName) {
+        return entityManager.createNamedQuery(FIND_QUOTES_BY_AUTHOR_USING_CRITERIA_API, Quote.class)
+                .setParameter("authorName", authorName);
+    }
+
+    /**
+     * Returns the named criteria query for the quotes having the given subject, fetching their authors and subjects.
+     */
+    public static TypedQuery<Quote> findQuotesBySubjectUsingCriteriaApi(EntityManager entityManager, String subject) {
+        return entityManager.createNamedQuery(FIND_QUOTES_BY_SUBJECT_USING_CRITERIA_API, Quote.class)
+                .setParameter("subject", subject);
+    }
+
+    /**
+     * Builds the criteria queries, and adds them to the given EntityManagerFactory as named queries.
+     * This must be done once, right after creating the EntityManagerFactory.
+     */
+    static void registerNamedQueries(EntityManagerFactory entityManagerFactory) {
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            CriteriaBuilder cb = entityManagerFactory.getCriteriaBuilder();
+
+            entityManagerFactory.addNamedQuery(
+                    FIND_ALL_QUOTES_USING_CRITERIA_API,
+                    entityManager.createQuery(findAllQuotesCriteriaQuery(cb)));
+            entityManagerFactory.addNamedQuery(
+                    FIND_QUOTES_BY_AUTHOR_USING_CRITERIA_API,
+                    entityManager.createQuery(findQuotesByAuthorCriteriaQuery(cb)));
+            entityManagerFactory.addNamedQuery(
+                    FIND_QUOTES_BY_SUBJECT_USING_CRITERIA_API,
+                    entityManager.createQuery(findQuotesBySubjectCriteriaQuery(cb)));
+        }
+    }
+
+    private static CriteriaQuery<Quote> findAllQuotesCriteriaQuery(CriteriaBuilder cb) {
+        CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
+
+        Root<Quote> quote = cq.from(Quote.class);
+        quote.fetch(Quote_.attributedTo, JoinType.INNER);
+        quote.fetch(Quote_.subjects, JoinType.LEFT);
+
+        return cq.select(quote);
+    }
+
+    private static CriteriaQuery<Quote> findQuotesByAuthorCriteriaQuery(CriteriaBuilder cb) {
+        CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
+
+        Root<Quote> quote = cq.from(Quote.class);
+        quote.fetch(Quote_.attributedTo, JoinType.INNER);
+        quote.fetch(Quote_.subjects, JoinType.LEFT);
+
+        cq.where(cb.equal(quote.get(Quote_.attributedTo).get(Author_.name), cb.parameter(String.class, "authorName")));
+        return cq.select(quote);
+    }
+
+    private static CriteriaQuery<Quote> findQuotesBySubjectCriteriaQuery(CriteriaBuilder cb) {
+        CriteriaQuery<Quote> cq = cb.createQuery(Quote.class);
+
+        Root<Quote> quote = cq.from(Quote.class);
+        Join<Quote, Subject> quoteSubject = quote.join(Quote_.subjects, JoinType.INNER);
+        quote.fetch(Quote_.attributedTo, JoinType.INNER);
+        quote.fetch(Quote_.subjects, JoinType.LEFT);
+
+        cq.where(cb.equal(quoteSubject.get(Subject_.subject), cb.parameter(String.class, "subject")));
+        return cq.select(quote);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.QueryTimeoutException;
+
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread-safe query service for quotes, on top of a shared EntityManagerFactory. Each call runs in its own
+ * read-only transaction (see {@link ReadOnlyTransactions}), with its own EntityManager, on the calling thread. The service is meant to be called from many
+ * (virtual) threads at the same time, e.g. one virtual thread per request.
+ * <p>
+ * Admission is bounded: at most "max concurrent queries" calls run at the same time, and other calls wait for
+ * their turn. That way the JDBC connection pool is never oversubscribed, however many virtual threads call
+ * this service. The maximum should therefore not exceed the connection pool size.
+ * <p>
+ * Each call has a timeout, covering both the wait for admission and the query itself. If admission is not
+ * granted in time, a {@link QueryTimeoutException} is thrown. Otherwise, the remaining time is passed as
+ * JPA query timeout to the queries of the call. Note that JDBC query timeouts have a granularity of seconds,
+ * so a call may take somewhat longer than the timeout before the database cancels it.
+ * <p>
+ * Throughput and latency counters are kept for all calls, and can be inspected with {@link #getStatistics()}.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuoteQueryService {
+
+    public static final int DEFAULT_MAX_CONCURRENT_QUERIES = 10;
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String QUERY_TIMEOUT = "jakarta.persistence.query.timeout";
+
+    /**
+     * Snapshot of the counters of a QuoteQueryService. The latencies include the wait for admission.
+     */
+    public record Statistics(
+            long completedCount,
+            long failedCount,
+            long timedOutCount,
+            long totalLatencyNanos,
+            long maxLatencyNanos,
+            long elapsedNanos
+    ) {
+
+        public long callCount() {
+            return completedCount + failedCount + timedOutCount;
+        }
+
+        /**
+         * Returns the number of completed calls per second, since the creation of the service.
+         */
+        public double throughputPerSecond() {
+            return (elapsedNanos == 0) ? 0.0 : completedCount / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        /**
+         * Returns the mean latency of the completed calls, in milliseconds.
+         */
+        public double meanLatencyMillis() {
+            return (completedCount == 0) ? 0.0 : totalLatencyNanos / (double) completedCount / 1_000_000.0;
+        }
+
+        public double maxLatencyMillis() {
+            return maxLatencyNanos / 1_000_000.0;
+        }
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final int maxConcurrentQueries;
+    private final Duration timeout;
+
+    private final Semaphore admission;
+    private final long creationNanos = System.nanoTime();
+
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder timedOutCount = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0L);
+
+    public QuoteQueryService(EntityManagerFactory entityManagerFactory, int maxConcurrentQueries, Duration timeout) {
+        Preconditions.checkArgument(maxConcurrentQueries > 0);
+        Preconditions.checkArgument(timeout.isPositive());
+        this.entityManagerFactory = entityManagerFactory;
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        this.timeout = timeout;
+        // Fair, so that waiting calls are admitted in arrival order, and none of them starves
+        this.admission = new Semaphore(maxConcurrentQueries, true);
+    }
+
+    public QuoteQueryService(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory, DEFAULT_MAX_CONCURRENT_QUERIES, DEFAULT_TIMEOUT);
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    public int getMaxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public ImmutableList<Model.Quote> findAllQuotes() {
+        return call(QueryQuotes::findAllQuotes);
+    }
+
+    public ImmutableList<Model.Quote> findQuotesByAuthor(String authorName) {
+        return call(em -> QueryQuotesByAuthor.findQuotesByAuthor(em, authorName));
+    }
+
+    public ImmutableList<Model.Quote> findQuotesBySubject(String subject) {
+        return call(em -> QueryQuotesBySubject.findQuotesBySubject(em, subject));
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(
+                completedCount.sum(),
+                failedCount.sum(),
+                timedOutCount.sum(),
+                totalLatencyNanos.sum(),
+                maxLatencyNanos.get(),
+                System.nanoTime() - creationNanos
+        );
+    }
+
+    private <R> R call(Function<EntityManager, R> query) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+
+        acquireAdmission(deadline);
+        try {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            // JDBC query timeouts are in whole seconds, and Hibernate rounds the JPA timeout (in ms) to seconds,
+            // so rounding up here, to make sure that the query timeout is never zero (which would mean no timeout)
+            long queryTimeoutMillis = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(remainingMillis + 999)) * 1000;
+
+            R result = ReadOnlyTransactions.callInReadOnlyTransaction(entityManagerFactory, em -> {
+                em.setProperty(QUERY_TIMEOUT, queryTimeoutMillis);
+                return query.apply(em);
+            });
+
+            long latencyNanos = System.nanoTime() - start;
+            completedCount.increment();
+            totalLatencyNanos.add(latencyNanos);
+            maxLatencyNanos.accumulate(latencyNanos);
+            return result;
+        } catch (RuntimeException e) {
+            if (isTimeout(e)) {
+                timedOutCount.increment();
+            } else {
+                failedCount.increment();
+            }
+            throw e;
+        } finally {
+            admission.release();
+        }
+    }
+
+    private void acquireAdmission(long deadline) {
+        try {
+            if (!admission.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                timedOutCount.increment();
+                throw new QueryTimeoutException("Timed out after " + timeout + " waiting for admission");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedCount.increment();
+            throw new PersistenceException("Interrupted while waiting for admission", e);
+        }
+    }
+
+    private static boolean isTimeout(Throwable exception) {
+        for (Throwable e = exception; e != null; e = e.getCause()) {
+            if (e instanceof QueryTimeoutException || e instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Collector of quote rows, as returned by a plain SQL query through JDBC, into immutable Quote records, in one pass.
+ * This is the JDBC counterpart of {@link QuoteRowsCollector}, bypassing Hibernate altogether: no entities, no
+ * tuples, and no type conversions other than those of the JDBC driver.
+ * <p>
+ * Each row contains one quote along with its author and (at most) one of its subjects, so a quote with multiple
+ * subjects spans multiple consecutive rows. The rows must therefore be ordered by quote ID. The columns are
+ * accessed by position, as in the following query:
+ * <pre>
+ * select qt.id, qt.quoteText, auth.id, auth.name, subj.id, subj.subject
+ * from Quote qt
+ * join Author auth on auth.id = qt.authorId
+ * left join QuoteSubject qs on qs.quoteId = qt.id
+ * left join Subject subj on subj.id = qs.subjectId
+ * order by qt.id
+ * </pre>
+ * Authors, subjects and subject sets are shared among the returned quotes (see {@link ModelConversionContext}),
+ * so the result is equal to (and shares instances like) that of the JPA query methods.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QuoteResultSetCollector {
+
+    /**
+     * The SQL select and from clauses of the query above, without the order by clause, so that a where clause can be added.
+     */
+    public static final String SELECT_QUOTE_ROWS = """
+            select qt.id, qt.quoteText, auth.id, auth.name, subj.id, subj.subject
+            from Quote qt
+            join Author auth on auth.id = qt.authorId
+            left join QuoteSubject qs on qs.quoteId = qt.id
+            left join Subject subj on subj.id = qs.subjectId""";
+
+    private static final int QUOTE_ID = 1;
+    private static final int QUOTE_TEXT = 2;
+    private static final int AUTHOR_ID = 3;
+    private static final int AUTHOR_NAME = 4;
+    private static final int SUBJECT_ID = 5;
+    private static final int SUBJECT = 6;
+
+    /**
+     * Collects the rows of the given result set, ordered by quote ID, into Quote records, in the same order.
+     * The result set is consumed, but not closed.
+     */
+    public ImmutableList<Model.Quote> collectQuotes(ResultSet rs) throws SQLException {
+        QuoteRowsGrouper grouper = new QuoteRowsGrouper();
+
+        while (rs.next()) {
+            long quoteId = rs.getLong(QUOTE_ID);
+
+            if (grouper.isNewQuote(quoteId)) {
+                grouper.startQuote(quoteId, rs.getString(QUOTE_TEXT), rs.getLong(AUTHOR_ID), rs.getString(AUTHOR_NAME));
+            }
+
+            // No subject if the quote has no subjects at all (due to the left join), in which case getLong returns 0
+            long subjectId = rs.getLong(SUBJECT_ID);
+            if (!rs.wasNull()) {
+                grouper.addSubject(subjectId, rs.getString(SUBJECT));
+            }
+        }
+        return grouper.finish();
+    }
+}
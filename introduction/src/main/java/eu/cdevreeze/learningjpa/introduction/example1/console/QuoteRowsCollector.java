@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.Tuple;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Collector of quote rows, as returned by a JPQL tuple (projection) query, into immutable Quote records.
+ * No JPA entities are involved at all, so nothing is added to the persistence context, no dirty-checking snapshots
+ * are taken, and no lazy associations can be triggered.
+ * <p>
+ * Each row contains one quote along with its author and (at most) one of its subjects, so a quote with multiple
+ * subjects spans multiple consecutive rows. The rows must therefore be ordered by quote ID. The row elements are
+ * accessed by their aliases, as in the following query (with lower case aliases, because Hibernate turns aliases
+ * into lower case in JPA query compliance mode):
+ * <pre>
+ * select qt.id as quote_id, qt.quoteText as quote_text, auth.id as author_id, auth.name as author_name,
+ *     subj.id as subject_id, subj.subject as subject
+ * from Quote qt
+ * join qt.attributedTo auth
+ * left join qt.subjects subj
+ * order by qt.id
+ * </pre>
+ * Authors, subjects and subject sets are shared among the returned quotes (see {@link ModelConversionContext}).
+ *
+ * @author Chris de Vreeze
+ */
+public final class QuoteRowsCollector {
+
+    /**
+     * Collects the given quote rows, ordered by quote ID, into Quote records, in the same order.
+     * The stream is consumed, but not closed.
+     */
+    public ImmutableList<Model.Quote> collectQuotes(Stream<Tuple> quoteRows) {
+        QuoteRowsGrouper grouper = new QuoteRowsGrouper();
+
+        Iterator<Tuple> rowIterator = quoteRows.iterator();
+        while (rowIterator.hasNext()) {
+            Tuple row = rowIterator.next();
+            long quoteId = row.get("quote_id", Long.class);
+
+            if (grouper.isNewQuote(quoteId)) {
+                grouper.startQuote(
+                        quoteId,
+                        row.get("quote_text", String.class),
+                        row.get("author_id", Long.class),
+                        row.get("author_name", String.class)
+                );
+            }
+
+            // No subject if the quote has no subjects at all (due to the left join)
+            Long subjectId = row.get("subject_id", Long.class);
+            if (subjectId != null) {
+                grouper.addSubject(subjectId, row.get("subject", String.class));
+            }
+        }
+        return grouper.finish();
+    }
+}
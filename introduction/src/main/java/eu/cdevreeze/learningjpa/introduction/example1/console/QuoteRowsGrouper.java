@@ -0,0 +1,108 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+
+import java.util.Objects;
+import java.util.OptionalLong;
+
+/**
+ * Grouping of quote rows, ordered by quote ID, into immutable Quote records, shared by {@link QuoteRowsCollector}
+ * and {@link QuoteResultSetCollector}. Those collectors only read the columns of each row, and feed them to this
+ * grouper. The quote and author columns only need to be read for the first row of each quote
+ * (see {@link #isNewQuote(long)}).
+ * <p>
+ * Authors, subjects and subject sets are shared among the returned quotes (see {@link ModelConversionContext}).
+ * <p>
+ * Instances are mutable, and meant to be used for one query result only.
+ *
+ * @author Chris de Vreeze
+ */
+final class QuoteRowsGrouper {
+
+    private final ModelConversionContext conversionContext = new ModelConversionContext();
+    private final ImmutableList.Builder<Model.Quote> quotes = ImmutableList.builder();
+
+    private QuoteBuilder currentQuote;
+
+    /**
+     * Returns true if the row with the given quote ID is the first row of a quote, in which case
+     * {@link #startQuote(long, String, long, String)} must be called for it.
+     */
+    boolean isNewQuote(long quoteId) {
+        return currentQuote == null || currentQuote.quoteId != quoteId;
+    }
+
+    /**
+     * Starts a new quote, after completing the previous one.
+     */
+    void startQuote(long quoteId, String quoteText, long authorId, String authorName) {
+        if (currentQuote != null) {
+            Preconditions.checkArgument(quoteId > currentQuote.quoteId, "Quote rows not ordered by quote ID");
+            quotes.add(currentQuote.build());
+        }
+        Model.Author author = conversionContext.canonicalize(new Model.Author(OptionalLong.of(authorId), authorName));
+        currentQuote = new QuoteBuilder(quoteId, quoteText, author);
+    }
+
+    /**
+     * Adds the given subject to the current quote. Not to be called for rows without subject (due to a left join).
+     */
+    void addSubject(long subjectId, String subject) {
+        Preconditions.checkState(currentQuote != null, "No quote started");
+        currentQuote.subjects.add(conversionContext.canonicalize(new Model.Subject(OptionalLong.of(subjectId), subject)));
+    }
+
+    /**
+     * Completes the last quote, and returns all quotes, in row order.
+     */
+    ImmutableList<Model.Quote> finish() {
+        if (currentQuote != null) {
+            quotes.add(currentQuote.build());
+            currentQuote = null;
+        }
+        return quotes.build();
+    }
+
+    private final class QuoteBuilder {
+
+        private final long quoteId;
+        private final String quoteText;
+        private final Model.Author author;
+        private final ImmutableSet.Builder<Model.Subject> subjects = ImmutableSet.builder();
+
+        private QuoteBuilder(long quoteId, String quoteText, Model.Author author) {
+            this.quoteId = quoteId;
+            this.quoteText = Objects.requireNonNull(quoteText);
+            this.author = Objects.requireNonNull(author);
+        }
+
+        private Model.Quote build() {
+            return new Model.Quote(
+                    OptionalLong.of(quoteId),
+                    quoteText,
+                    author,
+                    conversionContext.canonicalize(subjects.build())
+            );
+        }
+    }
+}
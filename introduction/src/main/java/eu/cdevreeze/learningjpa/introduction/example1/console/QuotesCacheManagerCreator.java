@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.util.OptionalLong;
+
+/**
+ * Factory of JCache CacheManager objects backing the 2nd level cache of the Quotes persistence unit.
+ * The cache manager is an in-process Caffeine cache manager, containing size-bounded cache regions for the
+ * (read-mostly, low-cardinality) Author and Subject entities, and for their natural IDs.
+ * <p>
+ * Each EntityManagerFactory needs its own cache manager, because Hibernate closes the cache manager when the
+ * EntityManagerFactory is closed.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuotesCacheManagerCreator {
+
+    public static final long DEFAULT_MAX_ENTRIES_PER_REGION = 10_000L;
+
+    private QuotesCacheManagerCreator() {
+    }
+
+    public static CacheManager createCacheManager() {
+        return createCacheManager(DEFAULT_MAX_ENTRIES_PER_REGION);
+    }
+
+    /**
+     * Creates a new CacheManager, with cache regions holding at most the given number of entries each.
+     * If a region is full, the least valuable entries are evicted (according to Caffeine's eviction policy).
+     */
+    public static CacheManager createCacheManager(long maxEntriesPerRegion) {
+        CaffeineCachingProvider cachingProvider = new CaffeineCachingProvider();
+        CacheManager cacheManager = cachingProvider.getCacheManager(
+                URI.create("quotes-cache"),
+                QuotesCacheManagerCreator.class.getClassLoader()
+        );
+
+        CaffeineConfiguration<Object, Object> regionConfig = new CaffeineConfiguration<>();
+        regionConfig.setMaximumSize(OptionalLong.of(maxEntriesPerRegion));
+
+        cacheManager.createCache(Author.CACHE_REGION, regionConfig);
+        cacheManager.createCache(Author.NATURAL_ID_CACHE_REGION, regionConfig);
+        cacheManager.createCache(Subject.CACHE_REGION, regionConfig);
+        cacheManager.createCache(Subject.NATURAL_ID_CACHE_REGION, regionConfig);
+        return cacheManager;
+    }
+}
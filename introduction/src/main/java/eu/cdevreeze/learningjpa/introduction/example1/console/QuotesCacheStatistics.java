@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.Optional;
+
+/**
+ * Snapshot of the hit/miss statistics of the 2nd level cache regions of the Quotes persistence unit, as maintained
+ * by Hibernate. The number of prepared JDBC statements is included as well, in order to
+ * show whether cache hits indeed save database round trips. Region sizes are not included, because the JCache
+ * integration of Hibernate cannot report them.
+ * <p>
+ * Hibernate only maintains these statistics if asked to, because doing so costs some time on every statement and
+ * cache access. So the {@link #entityManagerFactoryProperties()} must be passed when creating the EntityManagerFactory.
+ *
+ * @author Chris de Vreeze
+ */
+public record QuotesCacheStatistics(ImmutableList<RegionStatistics> regionStatistics, long prepareStatementCount) {
+
+    public record RegionStatistics(String regionName, long hitCount, long missCount, long putCount) {
+
+        public double hitRatio() {
+            long lookupCount = hitCount + missCount;
+            return (lookupCount == 0) ? 0.0 : ((double) hitCount) / lookupCount;
+        }
+    }
+
+    private static final ImmutableList<String> REGION_NAMES = ImmutableList.of(
+            Author.CACHE_REGION,
+            Author.NATURAL_ID_CACHE_REGION,
+            Subject.CACHE_REGION,
+            Subject.NATURAL_ID_CACHE_REGION
+    );
+
+    /**
+     * Returns the (Hibernate-specific) properties to pass when creating the EntityManagerFactory, so that Hibernate
+     * maintains the statistics needed by {@link #of(EntityManagerFactory)}.
+     */
+    public static ImmutableMap<String, Object> entityManagerFactoryProperties() {
+        return ImmutableMap.of("hibernate.generate_statistics", true);
+    }
+
+    public static QuotesCacheStatistics of(EntityManagerFactory entityManagerFactory) {
+        // Hibernate-specific
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Preconditions.checkState(
+                statistics.isStatisticsEnabled(),
+                "Hibernate statistics not enabled. See QuotesCacheStatistics.entityManagerFactoryProperties()");
+
+        ImmutableList<RegionStatistics> regionStatistics = REGION_NAMES.stream()
+                .flatMap(regionName -> Optional.ofNullable(statistics.getCacheRegionStatistics(regionName))
+                        .map(stats -> toRegionStatistics(regionName, stats))
+                        .stream())
+                .collect(ImmutableList.toImmutableList());
+        return new QuotesCacheStatistics(regionStatistics, statistics.getPrepareStatementCount());
+    }
+
+    private static RegionStatistics toRegionStatistics(String regionName, CacheRegionStatistics stats) {
+        return new RegionStatistics(
+                regionName,
+                stats.getHitCount(),
+                stats.getMissCount(),
+                stats.getPutCount()
+        );
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.time.Duration;
+
+/**
+ * Factory of HikariCP JDBC connection pools for the Quotes database, to be passed to
+ * {@link QuotesEntityManagerFactoryCreator#createEntityManagerFactory(HikariDataSource, java.util.Map)}.
+ * By default, the pools connect to the database of the profile named by system property "quotes.profile"
+ * (see {@link QuotesPersistenceProfile}).
+ * <p>
+ * The pools have a fixed size, as recommended by HikariCP. Threads wait at most the connection timeout for a
+ * connection to become available, after which an exception is thrown. Connections that are held longer than the
+ * leak detection threshold are logged as possible connection leaks. The pools are instrumented, so their metrics
+ * can be inspected with {@link QuotesConnectionPoolMetrics}.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuotesConnectionPoolCreator {
+
+    public static final int DEFAULT_MAXIMUM_POOL_SIZE = 10;
+    public static final Duration DEFAULT_CONNECTION_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_LEAK_DETECTION_THRESHOLD = Duration.ofSeconds(30);
+
+    private QuotesConnectionPoolCreator() {
+    }
+
+    public static HikariDataSource createDataSource() {
+        return createDataSource(DEFAULT_MAXIMUM_POOL_SIZE);
+    }
+
+    public static HikariDataSource createDataSource(int maximumPoolSize) {
+        return createDataSource(maximumPoolSize, DEFAULT_CONNECTION_TIMEOUT, DEFAULT_LEAK_DETECTION_THRESHOLD);
+    }
+
+    public static HikariDataSource createDataSource(
+            int maximumPoolSize,
+            Duration connectionTimeout,
+            Duration leakDetectionThreshold
+    ) {
+        return createDataSource(
+                QuotesPersistenceProfile.fromSystemProperty(),
+                maximumPoolSize,
+                connectionTimeout,
+                leakDetectionThreshold);
+    }
+
+    public static HikariDataSource createDataSource(
+            QuotesPersistenceProfile profile,
+            int maximumPoolSize,
+            Duration connectionTimeout,
+            Duration leakDetectionThreshold
+    ) {
+        Preconditions.checkArgument(maximumPoolSize > 0);
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("QuotesPool");
+        config.setDriverClassName(QuotesEntityManagerFactoryCreator.JDBC_DRIVER);
+        config.setJdbcUrl(profile.jdbcUrl());
+        config.setUsername(QuotesEntityManagerFactoryCreator.JDBC_USER);
+        config.setPassword(QuotesEntityManagerFactoryCreator.JDBC_PASSWORD);
+        config.setMaximumPoolSize(maximumPoolSize);
+        config.setMinimumIdle(maximumPoolSize); // fixed-size pool
+        config.setConnectionTimeout(connectionTimeout.toMillis());
+        config.setLeakDetectionThreshold(leakDetectionThreshold.toMillis());
+        // Hibernate always uses transactions, so it need not switch off auto-commit each time a connection is obtained
+        config.setAutoCommit(false);
+        config.setMetricsTrackerFactory(new QuotesConnectionPoolMetrics.AcquisitionTracker());
+        return new HikariDataSource(config);
+    }
+}
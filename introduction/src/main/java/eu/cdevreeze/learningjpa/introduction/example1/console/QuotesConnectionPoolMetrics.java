@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Snapshot of the metrics of a connection pool created by {@link QuotesConnectionPoolCreator}. The numbers of
+ * active, idle and total connections and of threads waiting for a connection are the current ones. The other
+ * metrics (about connection acquisition) are cumulative, since the creation of the connection pool.
+ *
+ * @author Chris de Vreeze
+ */
+public record QuotesConnectionPoolMetrics(
+        int activeConnections,
+        int idleConnections,
+        int totalConnections,
+        int threadsAwaitingConnection,
+        long acquisitionCount,
+        long timeoutCount,
+        long totalWaitNanos,
+        long maxWaitNanos,
+        long elapsedNanos
+) {
+
+    public double acquisitionsPerSecond() {
+        return (elapsedNanos == 0) ? 0.0 : acquisitionCount / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    /**
+     * Returns the mean time waited for a connection, in milliseconds.
+     */
+    public double meanWaitMillis() {
+        return (acquisitionCount == 0) ? 0.0 : totalWaitNanos / (double) acquisitionCount / 1_000_000.0;
+    }
+
+    public double maxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    public static QuotesConnectionPoolMetrics of(EntityManagerFactory entityManagerFactory) {
+        // Hibernate-specific
+        DataSource dataSource = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(ConnectionProvider.class)
+                .unwrap(DataSource.class);
+        if (!(dataSource instanceof HikariDataSource hikariDataSource)) {
+            throw new IllegalArgumentException("Not using a HikariCP connection pool");
+        }
+        return of(hikariDataSource);
+    }
+
+    public static QuotesConnectionPoolMetrics of(HikariDataSource dataSource) {
+        if (!(dataSource.getMetricsTrackerFactory() instanceof AcquisitionTracker tracker)) {
+            throw new IllegalArgumentException("Not a connection pool created by QuotesConnectionPoolCreator");
+        }
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+
+        return new QuotesConnectionPoolMetrics(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(),
+                tracker.acquisitionCount.sum(),
+                tracker.timeoutCount.sum(),
+                tracker.totalWaitNanos.sum(),
+                tracker.maxWaitNanos.get(),
+                System.nanoTime() - tracker.creationNanos
+        );
+    }
+
+    /**
+     * HikariCP metrics tracker, keeping track of connection acquisitions and the time waited for them.
+     * HikariCP calls it for each connection acquisition, so it must be cheap and thread-safe.
+     */
+    public static final class AcquisitionTracker implements MetricsTrackerFactory {
+
+        private final long creationNanos = System.nanoTime();
+
+        private final LongAdder acquisitionCount = new LongAdder();
+        private final LongAdder timeoutCount = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            return new IMetricsTracker() {
+
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    acquisitionCount.increment();
+                    totalWaitNanos.add(elapsedAcquiredNanos);
+                    maxWaitNanos.accumulate(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    timeoutCount.increment();
+                }
+            };
+        }
+    }
+}
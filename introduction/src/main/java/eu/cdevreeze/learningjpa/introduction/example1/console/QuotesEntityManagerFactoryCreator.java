@@ -16,40 +16,155 @@
 
 package eu.cdevreeze.learningjpa.introduction.example1.console;
 
+import com.google.common.collect.ImmutableMap;
+import com.zaxxer.hikari.HikariDataSource;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.BlockAllocatingIdOptimizer;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
 import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceConfiguration;
 import jakarta.persistence.PersistenceUnitTransactionType;
 import jakarta.persistence.SharedCacheMode;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+
+import java.util.Map;
 
 /**
- * Factory of EntityManagerFactory objects for the Quotes persistence unit and using a H2 in-memory database.
+ * Factory of EntityManagerFactory objects for the Quotes persistence unit and using a H2 database.
+ * The database, schema generation and SQL logging are determined by a {@link QuotesPersistenceProfile}. By default,
+ * the profile named by system property "quotes.profile" is used, and otherwise the DEV profile (in-memory database).
+ * The entities marked as cacheable are cached in a 2nd level cache (see {@link QuotesCacheManagerCreator}).
+ * By default, Hibernate's built-in JDBC connection pool is used, but a HikariCP connection pool can be passed instead.
+ * <p>
+ * Lazy associations are batch fetched, by default {@link #DEFAULT_BATCH_FETCH_SIZE} at a time. This can be overridden
+ * by passing property "hibernate.default_batch_fetch_size" as extra property (where 1 disables batch fetching).
+ * <p>
+ * The named criteria queries of {@link QuoteQueryRegistry} are added to each created EntityManagerFactory.
+ * If extra property {@link #WARM_UP} is true, the EntityManagerFactory is warmed up (see {@link QuotesWarmUp})
+ * before it is returned.
  *
  * @author Chris de Vreeze
  */
 public class QuotesEntityManagerFactoryCreator {
 
+    static final String JDBC_DRIVER = "org.h2.Driver";
+    static final String JDBC_USER = "sa";
+    static final String JDBC_PASSWORD = "";
+
+    /**
+     * The default number of lazy associations (or entity proxies) initialized in one SQL query.
+     */
+    public static final int DEFAULT_BATCH_FETCH_SIZE = 64;
+
+    /**
+     * The name of the (non-JPA, non-Hibernate) property that turns on warm-up of the EntityManagerFactory, if true.
+     * By default, there is no warm-up. Warm-up only needs write access to an empty database (see {@link QuotesWarmUp}).
+     */
+    public static final String WARM_UP = "quotes.warm_up";
+
     private QuotesEntityManagerFactoryCreator() {
     }
 
     public static EntityManagerFactory createEntityManagerFactory() {
-        return new PersistenceConfiguration("Quotes")
+        return createEntityManagerFactory(Map.of());
+    }
+
+    /**
+     * Like {@link #createEntityManagerFactory()}, except that the given properties are added to the
+     * default properties, overriding default properties with the same name.
+     */
+    public static EntityManagerFactory createEntityManagerFactory(Map<String, ?> extraProperties) {
+        return createEntityManagerFactory(QuotesPersistenceProfile.fromSystemProperty(), extraProperties);
+    }
+
+    /**
+     * Like {@link #createEntityManagerFactory(Map)}, except that the given profile is used.
+     */
+    public static EntityManagerFactory createEntityManagerFactory(
+            QuotesPersistenceProfile profile,
+            Map<String, ?> extraProperties
+    ) {
+        Map<String, Object> connectionProperties = ImmutableMap.of(
+                PersistenceConfiguration.JDBC_DRIVER, JDBC_DRIVER,
+                PersistenceConfiguration.JDBC_URL, profile.jdbcUrl(),
+                PersistenceConfiguration.JDBC_USER, JDBC_USER,
+                PersistenceConfiguration.JDBC_PASSWORD, JDBC_PASSWORD
+        );
+        return createEntityManagerFactory(profile, connectionProperties, extraProperties);
+    }
+
+    /**
+     * Like {@link #createEntityManagerFactory(Map)}, except that JDBC connections are obtained from the given
+     * connection pool (see {@link QuotesConnectionPoolCreator}), instead of from Hibernate's built-in connection pool,
+     * which is not meant for production use. The connection pool is closed when the EntityManagerFactory is closed.
+     */
+    public static EntityManagerFactory createEntityManagerFactory(HikariDataSource dataSource, Map<String, ?> extraProperties) {
+        return createEntityManagerFactory(QuotesPersistenceProfile.fromSystemProperty(), dataSource, extraProperties);
+    }
+
+    /**
+     * Like {@link #createEntityManagerFactory(HikariDataSource, Map)}, except that the given profile is used.
+     * The connection pool should connect to the database of that profile.
+     */
+    public static EntityManagerFactory createEntityManagerFactory(
+            QuotesPersistenceProfile profile,
+            HikariDataSource dataSource,
+            Map<String, ?> extraProperties
+    ) {
+        // No JDBC URL etc., because Hibernate would then ignore the DataSource
+        Map<String, Object> connectionProperties = ImmutableMap.of(
+                "hibernate.connection.datasource", dataSource, // Hibernate-specific
+                "hibernate.connection.provider_disables_autocommit", !dataSource.isAutoCommit(), // Hibernate-specific
+                "hibernate.session_factory_observer", new DataSourceClosingObserver(dataSource) // Hibernate-specific
+        );
+        try {
+            return createEntityManagerFactory(profile, connectionProperties, extraProperties);
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+    }
+
+    private static EntityManagerFactory createEntityManagerFactory(
+            QuotesPersistenceProfile profile,
+            Map<String, ?> connectionProperties,
+            Map<String, ?> extraProperties
+    ) {
+        EntityManagerFactory entityManagerFactory = new PersistenceConfiguration("Quotes")
                 .transactionType(PersistenceUnitTransactionType.RESOURCE_LOCAL)
-                .property(PersistenceConfiguration.JDBC_DRIVER, "org.h2.Driver")
-                .property(PersistenceConfiguration.JDBC_URL, "jdbc:h2:mem:quotedb") // in-memory
-                .property(PersistenceConfiguration.JDBC_USER, "sa")
-                .property(PersistenceConfiguration.JDBC_PASSWORD, "")
+                .properties(connectionProperties)
                 .property(PersistenceConfiguration.CACHE_MODE, SharedCacheMode.ENABLE_SELECTIVE) // 2nd level cache by default disabled
-                .property(PersistenceConfiguration.SCHEMAGEN_DATABASE_ACTION, "drop-and-create") // see Jakarta Persistence spec
-                .property("hibernate.show_sql", true) // Hibernate-specific
-                .property("hibernate.format_sql", true) // Hibernate-specific
-                .property("hibernate.highlight_sql", true) // Hibernate-specific
+                .property("hibernate.cache.region.factory_class", "jcache") // Hibernate-specific
+                .property("hibernate.javax.cache.cache_manager", QuotesCacheManagerCreator.createCacheManager()) // Hibernate-specific
+                .property("hibernate.javax.cache.missing_cache_strategy", "fail") // Hibernate-specific
+                .properties(profile.properties()) // schema generation and SQL logging
                 .property("hibernate.jpa.compliance.query", true) // Hibernate-specific
+                .property("hibernate.id.optimizer.pooled.preferred", BlockAllocatingIdOptimizer.class.getName()) // Hibernate-specific
+                .property("hibernate.default_batch_fetch_size", DEFAULT_BATCH_FETCH_SIZE) // Hibernate-specific
+                .properties(extraProperties)
                 .managedClass(Quote.class)
                 .managedClass(Subject.class)
                 .managedClass(Author.class)
                 .createEntityManagerFactory();
+        try {
+            QuoteQueryRegistry.registerNamedQueries(entityManagerFactory);
+            if (Boolean.parseBoolean(String.valueOf(extraProperties.get(WARM_UP)))) {
+                QuotesWarmUp.warmUp(entityManagerFactory);
+            }
+            return entityManagerFactory;
+        } catch (RuntimeException e) {
+            entityManagerFactory.close();
+            throw e;
+        }
+    }
+
+    private record DataSourceClosingObserver(HikariDataSource dataSource) implements SessionFactoryObserver {
+
+        @Override
+        public void sessionFactoryClosed(SessionFactory factory) {
+            dataSource.close();
+        }
     }
 }
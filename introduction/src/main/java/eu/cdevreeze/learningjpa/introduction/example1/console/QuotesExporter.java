@@ -0,0 +1,217 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writer of quotes, one line per quote, to a channel, in NDJSON (newline-delimited JSON) or CSV format.
+ * The quotes are written as they come, through one reusable (direct) byte buffer, so memory use does not depend
+ * on the number of quotes. Combined with the lazy quote stream of a {@link KeysetQuotePager}, the quotes are
+ * streamed from the database to the channel.
+ * <p>
+ * Each NDJSON line is a JSON object like this one:
+ * <pre>
+ * {"id":1,"quoteText":"...","author":{"id":2,"name":"..."},"subjects":[{"id":3,"subject":"..."}]}
+ * </pre>
+ * The CSV output (RFC 4180) starts with a header line, and has columns id, quote_text, author_id, author_name and
+ * subjects, where the subjects are separated by '|' characters. Within a subject, '|' and '\' characters are escaped
+ * with a backslash ("\|" and "\\"), so the subjects can be split again unambiguously. Text is UTF-8 encoded in both
+ * formats.
+ * <p>
+ * The channel is not closed by this writer.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuotesExporter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {NDJSON, CSV}
+
+    public record ExportCounts(long quoteCount, long byteCount) {
+    }
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder();
+
+    private long byteCount = 0;
+
+    public QuotesExporter(WritableByteChannel channel, Format format, int bufferSize) {
+        Preconditions.checkArgument(bufferSize >= 1024);
+        this.channel = channel;
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public QuotesExporter(WritableByteChannel channel, Format format) {
+        this(channel, format, DEFAULT_BUFFER_SIZE);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Writes the given quotes (preceded by the header line, for CSV), and flushes the buffer to the channel.
+     * Returns the number of quotes and bytes written.
+     */
+    public ExportCounts export(Stream<Model.Quote> quotes) {
+        long byteCountBefore = byteCount;
+        long quoteCount = 0;
+
+        if (format == Format.CSV) {
+            line.setLength(0);
+            line.append("id,quote_text,author_id,author_name,subjects\n");
+            writeLine();
+        }
+
+        Iterator<Model.Quote> quoteIterator = quotes.iterator();
+        while (quoteIterator.hasNext()) {
+            line.setLength(0);
+            switch (format) {
+                case NDJSON -> appendJson(quoteIterator.next());
+                case CSV -> appendCsv(quoteIterator.next());
+            }
+            line.append('\n');
+            writeLine();
+            quoteCount += 1;
+        }
+        drainBuffer();
+        return new ExportCounts(quoteCount, byteCount - byteCountBefore);
+    }
+
+    private void appendJson(Model.Quote quote) {
+        line.append("{\"id\":").append(quote.idOption().orElseThrow());
+        line.append(",\"quoteText\":");
+        appendJsonString(quote.quoteText());
+        line.append(",\"author\":{\"id\":").append(quote.attributedTo().idOption().orElseThrow());
+        line.append(",\"name\":");
+        appendJsonString(quote.attributedTo().name());
+        line.append("},\"subjects\":[");
+        boolean first = true;
+        for (Model.Subject subject : quote.subjects()) {
+            if (!first) {
+                line.append(',');
+            }
+            line.append("{\"id\":").append(subject.idOption().orElseThrow()).append(",\"subject\":");
+            appendJsonString(subject.subject());
+            line.append('}');
+            first = false;
+        }
+        line.append("]}");
+    }
+
+    private void appendJsonString(String s) {
+        line.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private void appendCsv(Model.Quote quote) {
+        line.append(quote.idOption().orElseThrow()).append(',');
+        appendCsvField(quote.quoteText());
+        line.append(',').append(quote.attributedTo().idOption().orElseThrow()).append(',');
+        appendCsvField(quote.attributedTo().name());
+        line.append(',');
+        appendCsvField(String.join("|", quote.subjects().stream().map(s -> escapeSubject(s.subject())).toList()));
+    }
+
+    private static String escapeSubject(String subject) {
+        if (subject.indexOf('|') < 0 && subject.indexOf('\\') < 0) {
+            return subject;
+        }
+        return subject.replace("\\", "\\\\").replace("|", "\\|");
+    }
+
+    private void appendCsvField(String s) {
+        boolean mustQuote = s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+        if (mustQuote) {
+            line.append('"').append(s.replace("\"", "\"\"")).append('"');
+        } else {
+            line.append(s);
+        }
+    }
+
+    private void writeLine() {
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        CoderResult result = encoder.encode(chars, buffer, true);
+        while (result.isOverflow()) {
+            // Buffer full, so writing it to the channel and continuing where the encoder left off
+            drainBuffer();
+            result = encoder.encode(chars, buffer, true);
+        }
+        checkEncodingSucceeded(result);
+
+        result = encoder.flush(buffer);
+        while (result.isOverflow()) {
+            drainBuffer();
+            result = encoder.flush(buffer);
+        }
+        checkEncodingSucceeded(result);
+    }
+
+    private static void checkEncodingSucceeded(CoderResult result) {
+        if (result.isError()) {
+            throw new IllegalStateException("Could not encode quote: " + result);
+        }
+    }
+
+    private void drainBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                byteCount += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pipelined importer of quotes from NDJSON input, in the format written by {@link QuotesExporter}. The pipeline has
+ * the following stages, each running on its own thread(s), and connected by bounded queues:
+ * <ol>
+ *     <li>Reading: lines are read from a buffered reader, and handed out in chunks of "chunk size" lines</li>
+ *     <li>Parsing: the chunks are parsed into quotes by a pool of parser threads (see {@link QuoteJsonParser})</li>
+ *     <li>Resolution: author names and subjects are mapped to IDs, using an in-memory name-to-ID map that is filled
+ *     with all existing authors and subjects at the start; new ones are inserted (and committed) on the fly,
+ *     using an {@link AuthorAndSubjectUpserter}</li>
+ *     <li>Insertion: the quotes and their quote-subject rows are inserted through a (Hibernate-specific)
+ *     StatelessSession in JDBC batches, committing every "quotes per transaction" quotes</li>
+ * </ol>
+ * The queues between the stages hold at most "queue capacity" chunks, so a slow stage makes the earlier stages wait
+ * (backpressure), and memory use does not depend on the size of the input. The parsed chunks are queued in input
+ * order (as futures), so the quotes get their IDs in input order, even though they are parsed in parallel.
+ * <p>
+ * Per stage, the number of processed items and the time spent working and waiting (for input or for room in the
+ * next queue) are tracked. They can be queried during the import, e.g. for progress reports, and are returned at
+ * the end. If a stage fails, the other stages are cancelled, and the exception is rethrown. The quotes that have
+ * been committed by then remain in the database.
+ * <p>
+ * The resolution and insertion stages each use a JDBC connection. An instance of this class is meant for one import
+ * at a time.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuotesImporter {
+
+    public static final String READ_STAGE = "read";
+    public static final String PARSE_STAGE = "parse";
+    public static final String RESOLVE_STAGE = "resolve";
+    public static final String INSERT_STAGE = "insert";
+
+    /**
+     * Importer settings. The JDBC batch size applies to the quote and quote-subject inserts.
+     */
+    public record Settings(int parserCount, int chunkSize, int queueCapacity, int jdbcBatchSize, int quotesPerTransaction) {
+
+        public Settings {
+            Preconditions.checkArgument(parserCount > 0);
+            Preconditions.checkArgument(chunkSize > 0);
+            Preconditions.checkArgument(queueCapacity > 0);
+            Preconditions.checkArgument(jdbcBatchSize > 0);
+            Preconditions.checkArgument(quotesPerTransaction > 0);
+        }
+
+        /**
+         * Returns the default settings for the given number of parser threads: chunks of 1000 lines, at most
+         * 2 chunks per parser thread in each queue, JDBC batches of {@link BulkQuotesInserter#DEFAULT_BATCH_SIZE}
+         * statements, and 10000 quotes per transaction.
+         */
+        public static Settings defaults(int parserCount) {
+            return new Settings(parserCount, 1000, 2 * parserCount, BulkQuotesInserter.DEFAULT_BATCH_SIZE, 10_000);
+        }
+    }
+
+    /**
+     * Progress of one stage: the number of processed items (lines or quotes), and the time spent working and waiting.
+     * For the parse stage, the times are summed over all parser threads.
+     */
+    public record StageStatistics(String stage, long itemCount, long busyNanos, long waitNanos) {
+    }
+
+    public record ImportResult(BulkQuotesInserter.RowCounts rowCounts, ImmutableList<StageStatistics> stages, long elapsedNanos) {
+    }
+
+    private record LineChunk(long firstLineNumber, ImmutableList<String> lines) {
+    }
+
+    private record ResolvedQuote(String quoteText, long authorId, ImmutableList<Long> subjectIds) {
+    }
+
+    // End-of-input markers, compared by identity
+    private static final Future<ImmutableList<Model.Quote>> END_OF_PARSED_CHUNKS =
+            CompletableFuture.completedFuture(ImmutableList.of());
+    private static final List<ResolvedQuote> END_OF_RESOLVED_CHUNKS = new ArrayList<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Settings settings;
+
+    private final StageCounter readCounter = new StageCounter(READ_STAGE);
+    private final StageCounter parseCounter = new StageCounter(PARSE_STAGE);
+    private final StageCounter resolveCounter = new StageCounter(RESOLVE_STAGE);
+    private final StageCounter insertCounter = new StageCounter(INSERT_STAGE);
+
+    private final LongAdder insertedAuthorCount = new LongAdder();
+    private final LongAdder insertedSubjectCount = new LongAdder();
+    private final LongAdder insertedQuoteSubjectCount = new LongAdder();
+
+    public QuotesImporter(EntityManagerFactory entityManagerFactory, Settings settings) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.settings = settings;
+    }
+
+    public QuotesImporter(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory, Settings.defaults(Runtime.getRuntime().availableProcessors()));
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Returns the current statistics of all stages, in pipeline order. This method can be called from any thread.
+     */
+    public ImmutableList<StageStatistics> getProgress() {
+        return ImmutableList.of(readCounter.snapshot(), parseCounter.snapshot(), resolveCounter.snapshot(), insertCounter.snapshot());
+    }
+
+    /**
+     * Imports all quotes read from the given reader, one JSON object per line (blank lines are skipped), and returns
+     * the number of inserted rows per table, along with the stage statistics. The reader is not closed.
+     */
+    public ImportResult importQuotes(BufferedReader reader) {
+        List.of(readCounter, parseCounter, resolveCounter, insertCounter).forEach(StageCounter::reset);
+        List.of(insertedAuthorCount, insertedSubjectCount, insertedQuoteSubjectCount).forEach(LongAdder::reset);
+        long start = System.nanoTime();
+
+        BlockingQueue<Future<ImmutableList<Model.Quote>>> parsedChunks = new ArrayBlockingQueue<>(settings.queueCapacity());
+        BlockingQueue<List<ResolvedQuote>> resolvedChunks = new ArrayBlockingQueue<>(settings.queueCapacity());
+
+        // Platform threads for parsing, which is CPU-bound, and virtual threads for the stages that mostly wait
+        try (ExecutorService parsers = Executors.newFixedThreadPool(settings.parserCount());
+             ExecutorService stages = Executors.newVirtualThreadPerTaskExecutor()) {
+            ExecutorCompletionService<Long> completionService = new ExecutorCompletionService<>(stages);
+            List<Future<Long>> stageResults = List.of(
+                    completionService.submit(() -> readAndParse(reader, parsers, parsedChunks)),
+                    completionService.submit(() -> resolve(parsedChunks, resolvedChunks)),
+                    completionService.submit(() -> insert(resolvedChunks))
+            );
+
+            try {
+                for (int i = 0; i < stageResults.size(); i++) {
+                    Future<Long> stageResult = completionService.take();
+                    if (stageResult.state() == Future.State.FAILED) {
+                        // Cancelling the other stages, which may otherwise wait forever for a full or empty queue
+                        stageResults.forEach(result -> result.cancel(true));
+                        parsers.shutdownNow();
+                        throw rethrow(stageResult.exceptionNow());
+                    }
+                }
+            } catch (InterruptedException e) {
+                stageResults.forEach(result -> result.cancel(true));
+                parsers.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            }
+
+            BulkQuotesInserter.RowCounts rowCounts = new BulkQuotesInserter.RowCounts(
+                    insertedAuthorCount.sum(),
+                    insertedSubjectCount.sum(),
+                    stageResults.get(2).resultNow(),
+                    insertedQuoteSubjectCount.sum()
+            );
+            return new ImportResult(rowCounts, getProgress(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The reading stage, which also submits the parse tasks, in input order. Returns the number of lines read.
+     */
+    private long readAndParse(
+            BufferedReader reader,
+            ExecutorService parsers,
+            BlockingQueue<Future<ImmutableList<Model.Quote>>> parsedChunks
+    ) throws IOException, InterruptedException {
+        long lineNumber = 0;
+        List<String> lines = new ArrayList<>(settings.chunkSize());
+        long firstLineNumber = 1;
+
+        long busyStart = System.nanoTime();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber += 1;
+            if (!line.isBlank()) {
+                lines.add(line);
+            }
+            if (lines.size() == settings.chunkSize()) {
+                LineChunk chunk = new LineChunk(firstLineNumber, ImmutableList.copyOf(lines));
+                readCounter.addBusy(lines.size(), System.nanoTime() - busyStart);
+                // Blocks while the queue is full, which throttles reading (and parsing) to the speed of the later stages
+                putTimed(parsedChunks, parsers.submit(() -> parse(chunk)), readCounter);
+                lines.clear();
+                firstLineNumber = lineNumber + 1;
+                busyStart = System.nanoTime();
+            }
+        }
+        if (!lines.isEmpty()) {
+            LineChunk chunk = new LineChunk(firstLineNumber, ImmutableList.copyOf(lines));
+            readCounter.addBusy(lines.size(), System.nanoTime() - busyStart);
+            putTimed(parsedChunks, parsers.submit(() -> parse(chunk)), readCounter);
+        }
+        putTimed(parsedChunks, END_OF_PARSED_CHUNKS, readCounter);
+        return lineNumber;
+    }
+
+    private ImmutableList<Model.Quote> parse(LineChunk chunk) {
+        long start = System.nanoTime();
+        QuoteJsonParser parser = new QuoteJsonParser();
+        ImmutableList.Builder<Model.Quote> quotes = ImmutableList.builderWithExpectedSize(chunk.lines().size());
+        // Line numbers are only exact if there are no blank lines
+        long lineNumber = chunk.firstLineNumber();
+        for (String line : chunk.lines()) {
+            try {
+                quotes.add(parser.parseQuote(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid quote at line " + lineNumber + ": " + e.getMessage(), e);
+            }
+            lineNumber += 1;
+        }
+        parseCounter.addBusy(chunk.lines().size(), System.nanoTime() - start);
+        return quotes.build();
+    }
+
+    /**
+     * The resolution stage, turning parsed quotes into quotes referring to author and subject IDs.
+     * Returns the number of resolved quotes.
+     */
+    private long resolve(
+            BlockingQueue<Future<ImmutableList<Model.Quote>>> parsedChunks,
+            BlockingQueue<List<ResolvedQuote>> resolvedChunks
+    ) throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        Map<String, Long> authorIds = new HashMap<>();
+        Map<String, Long> subjectIds = new HashMap<>();
+        entityManagerFactory.runInTransaction(em -> loadAuthorAndSubjectIds(em, authorIds, subjectIds));
+        resolveCounter.addBusy(0, System.nanoTime() - start);
+
+        long quoteCount = 0;
+        while (true) {
+            long waitStart = System.nanoTime();
+            Future<ImmutableList<Model.Quote>> parsedChunk = parsedChunks.take();
+            if (parsedChunk == END_OF_PARSED_CHUNKS) {
+                putTimed(resolvedChunks, END_OF_RESOLVED_CHUNKS, resolveCounter);
+                return quoteCount;
+            }
+            // Waiting for the parser thread, if needed, which keeps the chunks in input order
+            ImmutableList<Model.Quote> quotes = parsedChunk.get();
+            long busyStart = System.nanoTime();
+            resolveCounter.addWait(busyStart - waitStart);
+
+            insertNewAuthorsAndSubjects(quotes, authorIds, subjectIds);
+            List<ResolvedQuote> resolvedQuotes = quotes.stream()
+                    .map(qt -> new ResolvedQuote(
+                            qt.quoteText(),
+                            authorIds.get(qt.attributedTo().name()),
+                            qt.subjects().stream().map(subj -> subjectIds.get(subj.subject())).collect(ImmutableList.toImmutableList())))
+                    .toList();
+            quoteCount += quotes.size();
+            resolveCounter.addBusy(quotes.size(), System.nanoTime() - busyStart);
+
+            putTimed(resolvedChunks, resolvedQuotes, resolveCounter);
+        }
+    }
+
+    private void insertNewAuthorsAndSubjects(List<Model.Quote> quotes, Map<String, Long> authorIds, Map<String, Long> subjectIds) {
+        ImmutableSet<String> newAuthorNames = quotes.stream()
+                .map(qt -> qt.attributedTo().name())
+                .filter(name -> !authorIds.containsKey(name))
+                .collect(ImmutableSet.toImmutableSet());
+        ImmutableSet<String> newSubjectNames = quotes.stream()
+                .flatMap(qt -> qt.subjects().stream())
+                .map(Model.Subject::subject)
+                .filter(subj -> !subjectIds.containsKey(subj))
+                .collect(ImmutableSet.toImmutableSet());
+
+        if (newAuthorNames.isEmpty() && newSubjectNames.isEmpty()) {
+            return;
+        }
+        // Committed right away, so the insertion stage can refer to them in its own transaction
+        entityManagerFactory.runInTransaction(em -> {
+            AuthorAndSubjectUpserter upserter = new AuthorAndSubjectUpserter(em);
+            if (!newAuthorNames.isEmpty()) {
+                upserter.upsertAuthors(newAuthorNames).forEach((name, author) -> authorIds.put(name, author.getId()));
+            }
+            if (!newSubjectNames.isEmpty()) {
+                upserter.upsertSubjects(newSubjectNames).forEach((subj, subject) -> subjectIds.put(subj, subject.getId()));
+            }
+            insertedAuthorCount.add(upserter.getInsertedAuthorCount());
+            insertedSubjectCount.add(upserter.getInsertedSubjectCount());
+        });
+    }
+
+    private static void loadAuthorAndSubjectIds(EntityManager entityManager, Map<String, Long> authorIds, Map<String, Long> subjectIds) {
+        entityManager.createQuery("select auth.name as name, auth.id as id from Author auth", Tuple.class)
+                .getResultList()
+                .forEach(row -> authorIds.put(row.get("name", String.class), row.get("id", Long.class)));
+        entityManager.createQuery("select subj.subject as subject, subj.id as id from Subject subj", Tuple.class)
+                .getResultList()
+                .forEach(row -> subjectIds.put(row.get("subject", String.class), row.get("id", Long.class)));
+    }
+
+    /**
+     * The insertion stage. Returns the number of inserted quotes.
+     */
+    private long insert(BlockingQueue<List<ResolvedQuote>> resolvedChunks) throws InterruptedException {
+        // Hibernate-specific: no persistence context, so no dirty checking, no cascading, and nothing to clear
+        try (StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession()) {
+            session.setJdbcBatchSize(settings.jdbcBatchSize());
+            Transaction transaction = session.beginTransaction();
+            try {
+                long quoteCount = 0;
+                long uncommittedQuoteCount = 0;
+                while (true) {
+                    long waitStart = System.nanoTime();
+                    List<ResolvedQuote> resolvedQuotes = resolvedChunks.take();
+                    long busyStart = System.nanoTime();
+                    insertCounter.addWait(busyStart - waitStart);
+                    if (resolvedQuotes == END_OF_RESOLVED_CHUNKS) {
+                        transaction.commit();
+                        insertCounter.addBusy(0, System.nanoTime() - busyStart);
+                        return quoteCount;
+                    }
+
+                    // The quote-subject rows of each quote are inserted along with the quote
+                    session.insertMultiple(resolvedQuotes.stream().map(QuotesImporter::toEntity).toList());
+                    quoteCount += resolvedQuotes.size();
+                    uncommittedQuoteCount += resolvedQuotes.size();
+                    insertedQuoteSubjectCount.add(resolvedQuotes.stream().mapToLong(qt -> qt.subjectIds().size()).sum());
+
+                    if (uncommittedQuoteCount >= settings.quotesPerTransaction()) {
+                        transaction.commit();
+                        transaction = session.beginTransaction();
+                        uncommittedQuoteCount = 0;
+                    }
+                    insertCounter.addBusy(resolvedQuotes.size(), System.nanoTime() - busyStart);
+                }
+            } catch (RuntimeException | InterruptedException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static Quote toEntity(ResolvedQuote resolvedQuote) {
+        // For inserting, only the IDs of the author and subjects matter
+        Author author = new Author(null);
+        author.setId(resolvedQuote.authorId());
+        List<Subject> subjects = resolvedQuote.subjectIds().stream()
+                .map(id -> {
+                    Subject subject = new Subject(null);
+                    subject.setId(id);
+                    return subject;
+                })
+                .toList();
+        return new Quote(resolvedQuote.quoteText(), author, subjects);
+    }
+
+    private static <T> void putTimed(BlockingQueue<T> queue, T element, StageCounter counter) throws InterruptedException {
+        long start = System.nanoTime();
+        queue.put(element);
+        counter.addWait(System.nanoTime() - start);
+    }
+
+    private static RuntimeException rethrow(Throwable exception) {
+        Throwable cause = (exception instanceof ExecutionException) ? exception.getCause() : exception;
+        return switch (cause) {
+            case RuntimeException e -> e;
+            case IOException e -> new UncheckedIOException(e);
+            default -> new IllegalStateException(cause);
+        };
+    }
+
+    private static final class StageCounter {
+
+        private final String stage;
+        private final LongAdder itemCount = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+
+        StageCounter(String stage) {
+            this.stage = stage;
+        }
+
+        void addBusy(long items, long nanos) {
+            itemCount.add(items);
+            busyNanos.add(nanos);
+        }
+
+        void addWait(long nanos) {
+            waitNanos.add(nanos);
+        }
+
+        void reset() {
+            itemCount.reset();
+            busyNanos.reset();
+            waitNanos.reset();
+        }
+
+        StageStatistics snapshot() {
+            return new StageStatistics(stage, itemCount.sum(), busyNanos.sum(), waitNanos.sum());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableMap;
+import jakarta.persistence.PersistenceConfiguration;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Named persistence configuration profiles for the Quotes persistence unit, used by
+ * {@link QuotesEntityManagerFactoryCreator} and {@link QuotesConnectionPoolCreator}. A profile determines the H2
+ * database (in-memory or file-backed), what happens to the schema at startup, and whether SQL is logged.
+ * <ul>
+ *     <li>DEV: in-memory database, schema dropped and created at startup, SQL logged (the default)</li>
+ *     <li>BENCH: file-backed database, schema dropped and created at startup, no SQL logging</li>
+ *     <li>PROD: durable file-backed database, schema validated at startup, no SQL logging</li>
+ * </ul>
+ * The file-backed databases live in directory "learningjpa" in the user's home directory. They have a larger page
+ * cache (128 MB instead of the default 64 MB), and larger pages (16 KB instead of 4 KB; only set when the database
+ * file is created), which suits reading many rows at a time. The PROD database can also be used from other
+ * processes (such as the H2 console) at the same time, because the first process to open it starts an H2 server
+ * for the others ("AUTO_SERVER").
+ * <p>
+ * The PROD schema must have been created before, for example with program {@link CreateQuotesSchema}.
+ * <p>
+ * The profile is chosen with system property {@link #SYSTEM_PROPERTY}, e.g. "-Dquotes.profile=bench".
+ * The properties of a profile can still be overridden by passing extra properties to the EntityManagerFactory
+ * creator, including the JDBC URL.
+ *
+ * @author Chris de Vreeze
+ */
+public enum QuotesPersistenceProfile {
+
+    DEV("jdbc:h2:mem:quotedb", "drop-and-create", true),
+    BENCH("jdbc:h2:file:~/learningjpa/quotedb-bench;CACHE_SIZE=131072;PAGE_SIZE=16384", "drop-and-create", false),
+    PROD("jdbc:h2:file:~/learningjpa/quotedb;CACHE_SIZE=131072;PAGE_SIZE=16384;AUTO_SERVER=TRUE", "validate", false);
+
+    /**
+     * The name of the system property holding the (case-insensitive) profile name.
+     */
+    public static final String SYSTEM_PROPERTY = "quotes.profile";
+
+    private final String jdbcUrl;
+    private final String schemaAction;
+    private final boolean sqlLogging;
+
+    QuotesPersistenceProfile(String jdbcUrl, String schemaAction, boolean sqlLogging) {
+        this.jdbcUrl = jdbcUrl;
+        this.schemaAction = schemaAction;
+        this.sqlLogging = sqlLogging;
+    }
+
+    public String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    /**
+     * Returns the persistence unit properties of this profile, other than the JDBC connection properties.
+     */
+    public Map<String, Object> properties() {
+        return ImmutableMap.<String, Object>builder()
+                // "validate" is Hibernate-specific, but Hibernate accepts it for this standard property
+                .put(PersistenceConfiguration.SCHEMAGEN_DATABASE_ACTION, schemaAction)
+                .putAll(sqlLoggingProperties(sqlLogging))
+                .build();
+    }
+
+    /**
+     * Returns the properties turning off SQL logging, to be passed to the EntityManagerFactory creator on top of
+     * any profile. Useful for programs and tests whose own output would otherwise drown in logged SQL.
+     */
+    public static Map<String, Object> withoutSqlLogging() {
+        return sqlLoggingProperties(false);
+    }
+
+    /**
+     * Returns the profile named by system property {@link #SYSTEM_PROPERTY}, or the given default profile if that
+     * system property has not been set.
+     */
+    public static QuotesPersistenceProfile fromSystemProperty(QuotesPersistenceProfile defaultProfile) {
+        String profileName = System.getProperty(SYSTEM_PROPERTY);
+        return (profileName == null) ? defaultProfile : valueOf(profileName.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the profile named by system property {@link #SYSTEM_PROPERTY}, defaulting to DEV.
+     */
+    public static QuotesPersistenceProfile fromSystemProperty() {
+        return fromSystemProperty(DEV);
+    }
+
+    private static Map<String, Object> sqlLoggingProperties(boolean sqlLogging) {
+        return ImmutableMap.of(
+                "hibernate.show_sql", sqlLogging, // Hibernate-specific
+                "hibernate.format_sql", sqlLogging, // Hibernate-specific
+                "hibernate.highlight_sql", sqlLogging // Hibernate-specific
+        );
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Warm-up of a quotes EntityManagerFactory, to be done before it is used for the first "real" query. Without warm-up,
+ * the first execution of each query pays for interpreting the query (and putting it in Hibernate's query plan cache),
+ * generating its SQL, initializing the entity loaders and converters, and preparing the SQL statement in the database,
+ * on top of class loading and JIT compilation. That shows up as a latency spike right after startup.
+ * <p>
+ * The warm-up picks an existing subject, and runs the hot query paths for it a few times, converting the results to
+ * the immutable data model. This is done in one read-only transaction (see {@link ReadOnlyTransactions}), so nothing
+ * is written to the database. The subject is the one with the highest ID among the ones referred to by quotes, found
+ * through a foreign key index. It tends to be among the least quoted ones, so the warm-up takes about as long against
+ * a database filled with millions of quotes as against a small one.
+ * <p>
+ * Only if the database contains no quote with a subject, the warm-up inserts a sample quote (along with its author
+ * and subject) instead, and runs the hot query paths against that. This is done in one transaction, which is rolled
+ * back at the end, so the database content is not affected. Only the ID sequences may have moved on. So against an
+ * empty database (only), the warm-up needs write access.
+ * <p>
+ * Finally, the Hibernate statistics (if enabled) are cleared, so that they only reflect the "real" workload.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QuotesWarmUp {
+
+    public static final int DEFAULT_ROUND_COUNT = 10;
+
+    private static final System.Logger LOGGER = System.getLogger(QuotesWarmUp.class.getName());
+
+    private static final String AUTHOR_NAME = "Warm-up Author";
+    private static final String SUBJECT = "warm-up subject";
+
+    private QuotesWarmUp() {
+    }
+
+    /**
+     * Warms up the given EntityManagerFactory, running the hot query paths the given number of times.
+     * Returns the duration of the warm-up.
+     */
+    public static Duration warmUp(EntityManagerFactory entityManagerFactory, int roundCount) {
+        Preconditions.checkArgument(roundCount > 0);
+        long start = System.nanoTime();
+
+        boolean warmedUpUsingExistingData = ReadOnlyTransactions.callInReadOnlyTransaction(entityManagerFactory, em -> {
+            Optional<String> sampleSubject = findExistingSubject(em);
+            sampleSubject.ifPresent(subject -> runHotQueryPaths(em, subject, roundCount));
+            return sampleSubject.isPresent();
+        });
+
+        if (!warmedUpUsingExistingData) {
+            try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+                entityManager.getTransaction().begin();
+                try {
+                    insertSampleQuote(entityManager);
+                    runHotQueryPaths(entityManager, SUBJECT, roundCount);
+                } finally {
+                    entityManager.getTransaction().rollback();
+                }
+            }
+        }
+
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics().clear(); // Hibernate-specific
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        LOGGER.log(System.Logger.Level.INFO, "Warm-up of {0} rounds took {1} ms", roundCount, duration.toMillis());
+        return duration;
+    }
+
+    public static Duration warmUp(EntityManagerFactory entityManagerFactory) {
+        return warmUp(entityManagerFactory, DEFAULT_ROUND_COUNT);
+    }
+
+    private static Optional<String> findExistingSubject(EntityManager entityManager) {
+        // Uses the foreign key index on the subject ID, instead of scanning the Quote table
+        return entityManager.createQuery(
+                        "select subj.subject from Quote qt join qt.subjects subj order by subj.id desc",
+                        String.class)
+                .setMaxResults(1)
+                .getResultList()
+                .stream()
+                .findFirst();
+    }
+
+    private static void insertSampleQuote(EntityManager entityManager) {
+        AuthorAndSubjectUpserter upserter = new AuthorAndSubjectUpserter(entityManager);
+        Author author = upserter.upsertAuthors(List.of(AUTHOR_NAME)).get(AUTHOR_NAME);
+        Subject subject = upserter.upsertSubjects(List.of(SUBJECT)).get(SUBJECT);
+
+        Quote quote = new Quote("A quote to warm up with.", author, List.of(subject));
+        entityManager.persist(quote);
+        entityManager.flush();
+    }
+
+    private static void runHotQueryPaths(EntityManager entityManager, String subject, int roundCount) {
+        // Only queries that find the quotes of the sample subject through an index, so the cost does not depend on the
+        // table sizes. The one-quote keyset page stands in for the queries for all quotes.
+        // The by-author queries stay cold, as do the by-subject queries that left join from Quote to Subject
+        // (findQuotesBySubject, findQuotesBySubjectUsingCriteriaApi, findQuotesBySubjectUsingEntityGraph and
+        // findQuotesBySubjectUsingCriteriaApiAndEntityGraph). Whatever the author or subject, H2 scans the Quote table
+        // for them, which took seconds per query against half a million quotes.
+        List<Function<EntityManager, ImmutableList<Model.Quote>>> queries = List.of(
+                em -> new KeysetQuotePager(em, 1, 1).findPageAfter(0),
+                em -> QueryQuotesBySubject.findQuotesBySubjectUsingInAndUsingEntityGraph(em, subject),
+                em -> QueryQuotesBySubject.findQuotesBySubjectUsingNamedQuery(em, subject),
+                em -> QueryQuotesBySubject.findQuotesBySubjectUsingNamedCriteriaQuery(em, subject),
+                em -> QueryQuotesBySubject.findQuotesBySubjectInTwoPhases(em, subject),
+                em -> QueryQuotesBySubject.findQuotesBySubjectUsingIdSubquery(em, subject),
+                em -> QueryQuotesBySubject.findQuotesBySubjectUsingSubselectFetching(em, subject),
+                em -> QueryQuotesBySubject.findQuotesBySubjectUsingProjection(em, subject)
+        );
+
+        for (int i = 0; i < roundCount; i++) {
+            for (Function<EntityManager, ImmutableList<Model.Quote>> query : queries) {
+                // Clearing the persistence context, so that the entities are loaded (and converted) again each time
+                entityManager.clear();
+                ImmutableList<Model.Quote> quotes = query.apply(entityManager);
+                Preconditions.checkArgument(!quotes.isEmpty(), "Warm-up query found no quotes");
+            }
+        }
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.ConnectionAcquisitionMode;
+import org.hibernate.ConnectionReleaseMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.function.Function;
+
+/**
+ * Read-only counterpart of {@link EntityManagerFactory#callInTransaction(Function)}, for query-only workloads,
+ * such as the query methods in this package, which convert their results to the immutable data model right away.
+ * Within a read-only transaction:
+ * <ul>
+ *     <li>Loaded entities are read-only, so Hibernate keeps no snapshots of their loaded state for dirty checking</li>
+ *     <li>The flush mode is MANUAL, so there is no flush (and no dirty checking) before queries or at commit</li>
+ *     <li>The JDBC connection is marked read-only, which allows the JDBC driver and database to optimize</li>
+ * </ul>
+ * Changes made to entities within a read-only transaction are therefore silently lost.
+ * <p>
+ * Hibernate-specific. The EntityManager holds on to its JDBC connection from the start until the end, instead of
+ * releasing it after the transaction. That way, the connection can be marked read-only before the transaction
+ * begins, and reset after the transaction ends, because some JDBC drivers do not allow changing the read-only flag
+ * in the middle of a transaction. The connection is reset even for connection pools that reset it themselves.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ReadOnlyTransactions {
+
+    private ReadOnlyTransactions() {
+    }
+
+    /**
+     * Creates a read-only EntityManager, and calls the given function in a new transaction, passing that
+     * EntityManager. The transaction is committed if the function returns normally, and rolled back otherwise.
+     * Finally, the EntityManager is closed.
+     */
+    public static <R> R callInReadOnlyTransaction(EntityManagerFactory entityManagerFactory, Function<EntityManager, R> work) {
+        try (Session session = entityManagerFactory.unwrap(SessionFactory.class)
+                .withOptions()
+                .connectionHandling(ConnectionAcquisitionMode.AS_NEEDED, ConnectionReleaseMode.ON_CLOSE)
+                .flushMode(FlushMode.MANUAL)
+                .openSession()) {
+            session.setDefaultReadOnly(true);
+
+            session.doWork(connection -> connection.setReadOnly(true));
+            try {
+                return callInTransaction(session, work);
+            } finally {
+                session.doWork(connection -> connection.setReadOnly(false));
+            }
+        }
+    }
+
+    private static <R> R callInTransaction(EntityManager entityManager, Function<EntityManager, R> work) {
+        EntityTransaction transaction = entityManager.getTransaction();
+        transaction.begin();
+        try {
+            R result = work.apply(entityManager);
+            transaction.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        }
+    }
+}
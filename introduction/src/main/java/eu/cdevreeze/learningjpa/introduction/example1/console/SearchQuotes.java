@@ -0,0 +1,116 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import eu.cdevreeze.learningjpa.introduction.example1.search.QuoteSearchService;
+import eu.cdevreeze.learningjpa.introduction.example1.search.QuoteTextAnalyzer;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Example program searching quotes by keywords and by phrase, using a {@link QuoteSearchService}. It uses an H2
+ * in-memory database, and does all the needed bootstrapping itself, without needing any context. The program
+ * arguments are the keyword query (default "truth freedom") and the phrase query (default "of the").
+ * The search results are checked against filtering all quotes in Java, and it is shown that newly committed
+ * and deleted quotes are immediately reflected in the search results.
+ *
+ * @author Chris de Vreeze
+ */
+public class SearchQuotes {
+
+    public static void main(String[] args) {
+        String keywordQuery = (args.length == 0) ? "truth freedom" : args[0];
+        String phraseQuery = (args.length <= 1) ? "of the" : args[1];
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(QuotesPersistenceProfile.withoutSqlLogging())) {
+            ImmutableList<Model.Quote> insertedQuotes =
+                    emf.callInTransaction(em ->
+                            new QuotesInserter(em).insertQuotes().stream().map(Quote::toModel).collect(ImmutableList.toImmutableList()));
+
+            QuoteSearchService searchService = new QuoteSearchService(emf);
+
+            Preconditions.checkArgument(searchService.getIndex().size() == insertedQuotes.size());
+
+            // Keyword search, checked against filtering all quotes in Java
+            ImmutableList<Model.Quote> quotesByKeywords =
+                    searchService.findQuotesByKeywords(keywordQuery, insertedQuotes.size());
+
+            Preconditions.checkArgument(
+                    ImmutableSet.copyOf(quotesByKeywords).equals(filterByKeywords(insertedQuotes, keywordQuery)));
+
+            // Phrase search, checked against filtering all quotes in Java
+            ImmutableList<Model.Quote> quotesByPhrase =
+                    searchService.findQuotesByPhrase(phraseQuery, insertedQuotes.size());
+
+            Preconditions.checkArgument(
+                    ImmutableSet.copyOf(quotesByPhrase).equals(filterByPhrase(insertedQuotes, phraseQuery)));
+
+            System.out.println();
+            System.out.printf("Quotes matching keywords '%s' (best match first):%n", keywordQuery);
+            quotesByKeywords.forEach(qt -> System.out.printf("%n%s%n", qt));
+
+            System.out.println();
+            System.out.printf("Quotes containing phrase '%s' (best match first):%n", phraseQuery);
+            quotesByPhrase.forEach(qt -> System.out.printf("%n%s%n", qt));
+
+            // A newly committed quote can be found immediately, and a deleted quote no longer
+            String newQuoteText = "Serendipitous discoveries are the best discoveries.";
+            long newQuoteId = emf.callInTransaction(em -> {
+                Author author = new AuthorAndSubjectUpserter(em).upsertAuthors(List.of("Anonymous")).get("Anonymous");
+                Quote quote = new Quote(newQuoteText, author, List.of());
+                em.persist(quote);
+                em.flush();
+                return quote.getId();
+            });
+
+            ImmutableList<Model.Quote> quotesBySerendipitous = searchService.findQuotesByKeywords("serendipitous");
+            Preconditions.checkArgument(quotesBySerendipitous.size() == 1);
+            Preconditions.checkArgument(quotesBySerendipitous.getFirst().quoteText().equals(newQuoteText));
+
+            emf.runInTransaction(em -> em.remove(em.find(Quote.class, newQuoteId)));
+
+            Preconditions.checkArgument(searchService.findQuotesByKeywords("serendipitous").isEmpty());
+            Preconditions.checkArgument(searchService.getIndex().size() == insertedQuotes.size());
+
+            System.out.println();
+            System.out.printf("Number of quotes matching keywords '%s': %d%n", keywordQuery, quotesByKeywords.size());
+            System.out.printf("Number of quotes containing phrase '%s': %d%n", phraseQuery, quotesByPhrase.size());
+        }
+    }
+
+    private static ImmutableSet<Model.Quote> filterByKeywords(List<Model.Quote> quotes, String keywordQuery) {
+        ImmutableSet<String> keywords = ImmutableSet.copyOf(QuoteTextAnalyzer.analyze(keywordQuery));
+        return quotes.stream()
+                .filter(qt -> QuoteTextAnalyzer.analyze(qt.quoteText()).stream().anyMatch(keywords::contains))
+                .collect(ImmutableSet.toImmutableSet());
+    }
+
+    private static ImmutableSet<Model.Quote> filterByPhrase(List<Model.Quote> quotes, String phraseQuery) {
+        ImmutableList<String> phrase = QuoteTextAnalyzer.analyze(phraseQuery);
+        return quotes.stream()
+                .filter(qt -> Collections.indexOfSubList(QuoteTextAnalyzer.analyze(qt.quoteText()), phrase) >= 0)
+                .collect(ImmutableSet.toImmutableSet());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.instrumentation.QueryInstrumentation;
+import eu.cdevreeze.learningjpa.introduction.example1.instrumentation.QueryStatistics;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Example program running the quote queries against an instrumented EntityManagerFactory (see
+ * {@link QueryInstrumentation}), with SQL logging turned off, and printing the statistics per logical query.
+ * The program arguments are the number of rounds (default 100) in which all queries are run, and the slow query
+ * threshold in milliseconds (default {@link QueryInstrumentation#DEFAULT_SLOW_QUERY_THRESHOLD}).
+ *
+ * @author Chris de Vreeze
+ */
+public class ShowQueryStatistics {
+
+    public static void main(String[] args) {
+        int roundCount = (args.length == 0) ? 100 : Integer.parseInt(args[0]);
+        Duration slowQueryThreshold = (args.length <= 1)
+                ? QueryInstrumentation.DEFAULT_SLOW_QUERY_THRESHOLD
+                : Duration.ofMillis(Long.parseLong(args[1]));
+        Preconditions.checkArgument(roundCount > 0);
+
+        QueryInstrumentation instrumentation = new QueryInstrumentation(slowQueryThreshold);
+
+        Map<String, Object> properties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .putAll(instrumentation.entityManagerFactoryProperties())
+                .build();
+
+        try (EntityManagerFactory emf =
+                     instrumentation.instrument(QuotesEntityManagerFactoryCreator.createEntityManagerFactory(properties))) {
+            ImmutableList<Model.Quote> insertedQuotes =
+                    instrumentation.callInTransaction(emf, "insertQuotes", em ->
+                            new QuotesInserter(em).insertQuotes().stream().map(Quote::toModel).collect(ImmutableList.toImmutableList()));
+
+            ImmutableList<String> authorNames = insertedQuotes.stream()
+                    .map(qt -> qt.attributedTo().name())
+                    .distinct()
+                    .collect(ImmutableList.toImmutableList());
+            ImmutableList<String> subjects = insertedQuotes.stream()
+                    .flatMap(qt -> qt.subjects().stream())
+                    .map(Model.Subject::subject)
+                    .distinct()
+                    .collect(ImmutableList.toImmutableList());
+
+            for (int i = 0; i < roundCount; i++) {
+                ImmutableList<Model.Quote> queriedQuotes =
+                        instrumentation.callInTransaction(emf, "findAllQuotes", QueryQuotes::findAllQuotes);
+                Preconditions.checkArgument(queriedQuotes.equals(insertedQuotes));
+
+                ImmutableList<Model.Quote> queriedQuotesUsingEntityGraph =
+                        instrumentation.callInTransaction(emf, "findAllQuotesUsingEntityGraph", QueryQuotes::findAllQuotesUsingEntityGraph);
+                Preconditions.checkArgument(queriedQuotesUsingEntityGraph.equals(insertedQuotes));
+
+                ImmutableList<Model.Quote> queriedQuotesOneByOne =
+                        instrumentation.callInTransaction(emf, "findAllQuotesOneByOne", QueryQuotes::findAllQuotesOneByOne);
+                Preconditions.checkArgument(queriedQuotesOneByOne.equals(insertedQuotes));
+
+                for (String authorName : authorNames) {
+                    ImmutableList<Model.Quote> quotesByAuthor = instrumentation.callInTransaction(
+                            emf, "findQuotesByAuthor", em -> QueryQuotesByAuthor.findQuotesByAuthor(em, authorName));
+                    Preconditions.checkArgument(
+                            quotesByAuthor.stream().allMatch(qt -> qt.attributedTo().name().equals(authorName)));
+                }
+
+                for (String subject : subjects) {
+                    ImmutableList<Model.Quote> quotesBySubject = instrumentation.callInTransaction(
+                            emf, "findQuotesBySubject", em -> QueryQuotesBySubject.findQuotesBySubject(em, subject));
+                    Preconditions.checkArgument(
+                            quotesBySubject.stream().allMatch(qt -> qt.subjects().stream().anyMatch(s -> s.subject().equals(subject))));
+                }
+            }
+
+            System.out.println();
+            System.out.printf(
+                    "%-32s %8s %6s %10s %11s %10s %10s %9s %9s %9s %9s%n",
+                    "Query", "Count", "Slow", "Stmts/exec", "SQL ms/exec", "Rows/exec", "Ents/exec", "Mean ms", "p50 ms", "p99 ms", "Max ms"
+            );
+            for (QueryStatistics statistics : instrumentation.snapshot().values()) {
+                System.out.printf(
+                        "%-32s %8d %6d %10.1f %11.3f %10.1f %10.1f %9.3f %9.3f %9.3f %9.3f%n",
+                        statistics.queryName(),
+                        statistics.executionCount(),
+                        statistics.slowExecutionCount(),
+                        statistics.statementsPerExecution(),
+                        statistics.statementMillisPerExecution(),
+                        statistics.rowsPerExecution(),
+                        statistics.entityLoadsPerExecution(),
+                        statistics.latencies().meanMillis(),
+                        statistics.latencies().percentileMillis(50),
+                        statistics.latencies().percentileMillis(99),
+                        statistics.latencies().maxMillis()
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Example program showing the latency of the first execution of the hot query paths, compared to later executions,
+ * with or without warm-up of the EntityManagerFactory (see {@link QuotesWarmUp}). The program arguments are whether
+ * to warm up (default false) and the number of later executions per query (default 100).
+ * <p>
+ * The program should be run twice, once with and once without warm-up, each in a fresh JVM. Otherwise, the
+ * second measurement would benefit from the class loading and JIT compilation done for the first one.
+ *
+ * @author Chris de Vreeze
+ */
+public class ShowTimeToFirstQuery {
+
+    private static final String AUTHOR_NAME = "Wim Hof";
+    private static final String SUBJECT = "inner strength";
+
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+
+        boolean warmUp = args.length != 0 && Boolean.parseBoolean(args[0]);
+        int repetitionCount = (args.length <= 1) ? 100 : Integer.parseInt(args[1]);
+        Preconditions.checkArgument(repetitionCount > 0);
+
+        Map<String, Object> properties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .put(QuotesEntityManagerFactoryCreator.WARM_UP, warmUp)
+                .build();
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(properties)) {
+            double readyMillis = millisSince(start);
+
+            ImmutableList<Model.Quote> insertedQuotes =
+                    emf.callInTransaction(em ->
+                            new QuotesInserter(em).insertQuotes().stream().map(Quote::toModel).collect(ImmutableList.toImmutableList()));
+
+            ImmutableMap<String, Function<EntityManager, ImmutableList<Model.Quote>>> queries = ImmutableMap.of(
+                    "findAllQuotes", QueryQuotes::findAllQuotes,
+                    "findQuotesByAuthor", em -> QueryQuotesByAuthor.findQuotesByAuthor(em, AUTHOR_NAME),
+                    "findQuotesBySubject", em -> QueryQuotesBySubject.findQuotesBySubject(em, SUBJECT),
+                    "findAllQuotesUsingProjection", QueryQuotes::findAllQuotesUsingProjection
+            );
+
+            System.out.println();
+            System.out.printf("Warm-up: %s%n", warmUp);
+            System.out.printf("EntityManagerFactory ready after %.1f ms%n", readyMillis);
+            System.out.println();
+            System.out.printf("%-32s %14s %14s %14s%n", "Query", "First ms", "Median ms", "First/median");
+
+            for (Map.Entry<String, Function<EntityManager, ImmutableList<Model.Quote>>> query : queries.entrySet()) {
+                double[] latencies = new double[repetitionCount + 1];
+                for (int i = 0; i < latencies.length; i++) {
+                    long queryStart = System.nanoTime();
+                    ImmutableList<Model.Quote> quotes = emf.callInTransaction(query.getValue());
+                    latencies[i] = millisSince(queryStart);
+                    Preconditions.checkArgument(!quotes.isEmpty() && insertedQuotes.containsAll(quotes));
+                }
+
+                double firstLatency = latencies[0];
+                double[] laterLatencies = Arrays.copyOfRange(latencies, 1, latencies.length);
+                Arrays.sort(laterLatencies);
+                double medianLatency = laterLatencies[laterLatencies.length / 2];
+
+                System.out.printf(
+                        "%-32s %14.3f %14.3f %14.1f%n",
+                        query.getKey(), firstLatency, medianLatency, firstLatency / medianLatency);
+            }
+        }
+    }
+
+    private static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+}
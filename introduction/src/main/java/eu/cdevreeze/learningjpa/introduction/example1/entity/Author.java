@@ -18,6 +18,10 @@ package eu.cdevreeze.learningjpa.introduction.example1.entity;
 
 import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.Optional;
 
@@ -28,18 +32,35 @@ import java.util.Optional;
  */
 @Entity
 @Table(name = "Author") // This annotation could be left out (i.e. left implicit)
-@NamedQueries(
+@Cacheable // Read-mostly reference data, so a good candidate for the 2nd level cache
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Author.CACHE_REGION) // Hibernate-specific
+@NaturalIdCache(region = Author.NATURAL_ID_CACHE_REGION) // Hibernate-specific
+@NamedQueries({
         @NamedQuery(
                 name = "findByName",
                 query = "select auth from Author auth where auth.name = :name"
+        ),
+        @NamedQuery(
+                name = "findByNames",
+                query = "select auth from Author auth where auth.name in :names"
         )
-)
+})
 public class Author {
 
+    public static final String CACHE_REGION = "Author";
+    public static final String NATURAL_ID_CACHE_REGION = "AuthorNaturalId";
+
+    /**
+     * The number of IDs reserved per database sequence call (see {@link BlockAllocatingIdOptimizer}).
+     */
+    public static final int ID_BLOCK_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "AuthorIdGenerator")
+    @SequenceGenerator(name = "AuthorIdGenerator", sequenceName = "Author_SEQ", allocationSize = ID_BLOCK_SIZE)
     private Long id;
 
+    @NaturalId // Hibernate-specific; implies a unique key, and must not be updated
     @Basic(optional = false) // better than: @Column(nullable = false)
     private String name;
 
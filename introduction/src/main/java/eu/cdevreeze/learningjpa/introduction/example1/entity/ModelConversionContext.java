@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.entity;
+
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Context for converting JPA entities to the immutable data model, sharing model instances where possible.
+ * That is, there is only one Model.Author instance per author ID, only one Model.Subject instance per subject ID,
+ * and only one instance per distinct set of subjects. For large query results, in which the same authors and
+ * subjects occur many times, this saves a lot of heap, compared to the conversion methods of the entities themselves.
+ * <p>
+ * Since model objects are deeply immutable, sharing them is safe. It is assumed, though, that within one context
+ * an entity with a given ID is always converted to the same model object. So a context should be short-lived,
+ * typically used for only one query result. Entities without ID are converted without any sharing.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class ModelConversionContext {
+
+    private final ConcurrentMap<Long, Model.Author> authors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Model.Subject> subjects = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ImmutableSet<Model.Subject>, ImmutableSet<Model.Subject>> subjectSets =
+            new ConcurrentHashMap<>();
+
+    public Model.Author toModel(Author author) {
+        if (author.getId() == null) {
+            return author.toModel();
+        }
+        return authors.computeIfAbsent(author.getId(), id -> author.toModel());
+    }
+
+    public Model.Subject toModel(Subject subject) {
+        if (subject.getId() == null) {
+            return subject.toModel();
+        }
+        return subjects.computeIfAbsent(subject.getId(), id -> subject.toModel());
+    }
+
+    /**
+     * Converts the given Quote entity to an immutable Quote record, like {@link Quote#toModel()} does,
+     * but sharing author, subject and subject set instances.
+     */
+    public Model.Quote toModel(Quote quote) {
+        ImmutableSet<Model.Subject> subjectSet = quote.getSubjects().stream()
+                .map(this::toModel)
+                .collect(ImmutableSet.toImmutableSet());
+
+        return new Model.Quote(
+                Optional.ofNullable(quote.getId()).stream().mapToLong(id -> id).findFirst(),
+                quote.getQuoteText(),
+                toModel(quote.getAttributedTo()),
+                canonicalize(subjectSet)
+        );
+    }
+
+    /**
+     * Returns the shared instance of the given (model) author, for query paths that create model objects
+     * directly instead of converting them from entities.
+     */
+    public Model.Author canonicalize(Model.Author author) {
+        if (author.idOption().isEmpty()) {
+            return author;
+        }
+        return authors.computeIfAbsent(author.idOption().getAsLong(), id -> author);
+    }
+
+    /**
+     * Returns the shared instance of the given (model) subject, for query paths that create model objects
+     * directly instead of converting them from entities.
+     */
+    public Model.Subject canonicalize(Model.Subject subject) {
+        if (subject.idOption().isEmpty()) {
+            return subject;
+        }
+        return subjects.computeIfAbsent(subject.idOption().getAsLong(), id -> subject);
+    }
+
+    /**
+     * Returns the shared instance of the given subject set. The given set is only kept if no equal set
+     * has been seen before. It is assumed that the subjects in the set have been canonicalized already.
+     */
+    public ImmutableSet<Model.Subject> canonicalize(ImmutableSet<Model.Subject> subjectSet) {
+        return subjectSets.computeIfAbsent(subjectSet, subjSet -> subjSet);
+    }
+}
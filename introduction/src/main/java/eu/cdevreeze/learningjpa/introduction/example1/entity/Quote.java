@@ -19,6 +19,9 @@ package eu.cdevreeze.learningjpa.introduction.example1.entity;
 import com.google.common.collect.ImmutableSet;
 import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
 import jakarta.persistence.*;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.FetchProfile;
+import org.hibernate.annotations.FetchProfileOverride;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,15 +29,57 @@ import java.util.Optional;
 
 /**
  * Quote JPA entity.
+ * <p>
+ * Both associations are lazy. Query paths that neither join fetch them nor use a load graph depend on batch fetching
+ * (configured for the persistence unit) or subselect fetching (see {@link #SUBJECTS_BY_SUBSELECT}) to avoid
+ * one SQL query per quote.
  *
  * @author Chris de Vreeze
  */
 @Entity
 @Table(name = "Quote") // This annotation could be left out (i.e. left implicit)
+@FetchProfile(name = Quote.SUBJECTS_BY_SUBSELECT) // Hibernate-specific
+@NamedEntityGraph(
+        name = Quote.WITH_AUTHOR_AND_SUBJECTS,
+        attributeNodes = {@NamedAttributeNode("attributedTo"), @NamedAttributeNode("subjects")}
+)
+// Named queries are parsed and validated once, when the persistence unit is bootstrapped
+@NamedQueries({
+        @NamedQuery(
+                name = "findAllQuotes",
+                query = "select qt from Quote qt"
+        ),
+        @NamedQuery(
+                name = "findQuotesByAuthorName",
+                query = "select qt from Quote qt where qt.attributedTo.name = :authorName"
+        ),
+        @NamedQuery(
+                name = "findQuotesBySubjectName",
+                query = "select qt from Quote qt join qt.subjects subj where subj.subject = :subject"
+        )
+})
 public class Quote {
 
+    /**
+     * The name of the entity graph of a quote along with its author and subjects.
+     */
+    public static final String WITH_AUTHOR_AND_SUBJECTS = "QuoteWithAuthorAndSubjects";
+
+    /**
+     * The name of the (Hibernate-specific) fetch profile in which the subjects of all quotes returned by a query are
+     * loaded together, in one extra SQL query repeating the original query as subquery. Unlike join fetching, this
+     * does not repeat the quote columns for each subject of a quote.
+     */
+    public static final String SUBJECTS_BY_SUBSELECT = "QuoteSubjectsBySubselect";
+
+    /**
+     * The number of IDs reserved per database sequence call (see {@link BlockAllocatingIdOptimizer}).
+     */
+    public static final int ID_BLOCK_SIZE = 500;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "QuoteIdGenerator")
+    @SequenceGenerator(name = "QuoteIdGenerator", sequenceName = "Quote_SEQ", allocationSize = ID_BLOCK_SIZE)
     private Long id;
 
     @Basic(optional = false) // this implies the column is not nullable when generating the schema
@@ -54,6 +99,7 @@ public class Quote {
             inverseJoinColumns = @JoinColumn(name = "subjectId", nullable = false, referencedColumnName = "id", foreignKey = @ForeignKey(name = "FkSubjectId"))
     )
     // List instead of Set, to avoid having to override equals/hashCode for highly mutable JPA entities
+    @FetchProfileOverride(profile = SUBJECTS_BY_SUBSELECT, mode = FetchMode.SUBSELECT) // Hibernate-specific
     private List<Subject> subjects;
 
     protected Quote() {
@@ -18,6 +18,10 @@ package eu.cdevreeze.learningjpa.introduction.example1.entity;
 
 import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.Optional;
 
@@ -28,18 +32,35 @@ import java.util.Optional;
  */
 @Entity
 @Table(name = "Subject") // This annotation could be left out (i.e. left implicit)
-@NamedQueries(
+@Cacheable // Read-mostly reference data, so a good candidate for the 2nd level cache
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Subject.CACHE_REGION) // Hibernate-specific
+@NaturalIdCache(region = Subject.NATURAL_ID_CACHE_REGION) // Hibernate-specific
+@NamedQueries({
         @NamedQuery(
                 name = "findBySubject",
                 query = "select subj from Subject subj where subj.subject = :subject"
+        ),
+        @NamedQuery(
+                name = "findBySubjects",
+                query = "select subj from Subject subj where subj.subject in :subjects"
         )
-)
+})
 public class Subject {
 
+    public static final String CACHE_REGION = "Subject";
+    public static final String NATURAL_ID_CACHE_REGION = "SubjectNaturalId";
+
+    /**
+     * The number of IDs reserved per database sequence call (see {@link BlockAllocatingIdOptimizer}).
+     */
+    public static final int ID_BLOCK_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SubjectIdGenerator")
+    @SequenceGenerator(name = "SubjectIdGenerator", sequenceName = "Subject_SEQ", allocationSize = ID_BLOCK_SIZE)
     private Long id;
 
+    @NaturalId // Hibernate-specific; implies a unique key, and must not be updated
     @Basic(optional = false) // better than: @Column(nullable = false)
     private String subject;
 
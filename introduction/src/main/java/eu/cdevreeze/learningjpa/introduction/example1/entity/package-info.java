@@ -30,6 +30,9 @@
  * not a fan of overriding equals/hashCode for entities, but the consequence is that entities should then have
  * no Set-based associations.
  * <p>
+ * Entities Author and Subject do use the Hibernate-specific @NaturalId annotation, but only so that they can be
+ * looked up by name through the natural ID 2nd level cache. That does not affect their equals/hashCode methods.
+ * <p>
  * Each JPA entity has an explicit or implicit {@link jakarta.persistence.Table} annotation (for the "primary table").
  * Other JPA annotations on the entity are either at the "SQL level" or at the higher object-oriented abstraction level.
  * See <a href="https://docs.jboss.org/hibernate/orm/7.0/introduction/html_single/Hibernate_Introduction.html#basic-attributes">basic attributes</a>,
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.instrumentation;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets. Bucket 0 counts latencies below 1 microsecond, and bucket
+ * i (for i &gt; 0) counts latencies of at least 2^(i - 1) and less than 2^i microseconds. The last bucket also counts
+ * all larger latencies. Recording a latency costs a few atomic increments, and the memory use is constant.
+ * <p>
+ * Percentiles are approximated by the upper bound of the bucket in which they fall, so they are accurate
+ * up to a factor 2.
+ *
+ * @author Chris de Vreeze
+ */
+public final class LatencyHistogram {
+
+    public static final int BUCKET_COUNT = 32;
+
+    /**
+     * Snapshot of a latency histogram. Since recording continues while taking the snapshot, the bucket counts,
+     * total and maximum are not necessarily exactly consistent with each other.
+     */
+    public record Snapshot(ImmutableList<Long> bucketCounts, long count, long totalNanos, long maxNanos) {
+
+        public double meanMillis() {
+            return (count == 0) ? 0.0 : totalNanos / (double) count / 1_000_000.0;
+        }
+
+        public double maxMillis() {
+            return maxNanos / 1_000_000.0;
+        }
+
+        /**
+         * Returns the approximate latency percentile, in milliseconds, for a percentile between 0 and 100.
+         * It is the upper bound of the bucket containing the percentile, but not more than the maximum latency.
+         */
+        public double percentileMillis(double percentile) {
+            Preconditions.checkArgument(percentile >= 0.0 && percentile <= 100.0);
+            long bucketCountSum = bucketCounts.stream().mapToLong(Long::longValue).sum();
+            if (bucketCountSum == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * bucketCountSum));
+            long cumulativeCount = 0;
+            for (int i = 0; i < bucketCounts.size(); i++) {
+                cumulativeCount += bucketCounts.get(i);
+                if (cumulativeCount >= rank) {
+                    return Math.min(bucketUpperBoundMicros(i) / 1000.0, maxMillis());
+                }
+            }
+            return maxMillis();
+        }
+    }
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    public void record(long latencyNanos) {
+        bucketCounts.incrementAndGet(bucketIndex(latencyNanos));
+        totalNanos.add(latencyNanos);
+        maxNanos.accumulate(latencyNanos);
+    }
+
+    public Snapshot snapshot() {
+        ImmutableList<Long> counts = IntStream.range(0, BUCKET_COUNT)
+                .mapToObj(bucketCounts::get)
+                .collect(ImmutableList.toImmutableList());
+        return new Snapshot(
+                counts,
+                counts.stream().mapToLong(Long::longValue).sum(),
+                totalNanos.sum(),
+                maxNanos.get()
+        );
+    }
+
+    /**
+     * Returns the exclusive upper bound of the given bucket, in microseconds.
+     */
+    public static long bucketUpperBoundMicros(int bucketIndex) {
+        Preconditions.checkElementIndex(bucketIndex, BUCKET_COUNT);
+        return 1L << bucketIndex;
+    }
+
+    private static int bucketIndex(long latencyNanos) {
+        long latencyMicros = Math.max(0L, latencyNanos / 1000);
+        // The number of significant bits of the latency in microseconds, which is 0 for latencies below 1 microsecond
+        int bucketIndex = Long.SIZE - Long.numberOfLeadingZeros(latencyMicros);
+        return Math.min(bucketIndex, BUCKET_COUNT - 1);
+    }
+}
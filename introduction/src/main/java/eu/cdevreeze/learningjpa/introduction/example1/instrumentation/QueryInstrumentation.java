@@ -0,0 +1,306 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.instrumentation;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Streams;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerGroup;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Instrumentation of an EntityManagerFactory, recording statistics per logical query. A logical query is a named
+ * piece of work run on one thread, through {@link #measure(String, Supplier)} or
+ * {@link #callInTransaction(EntityManagerFactory, String, Function)}. SQL statements (and the time spent executing
+ * them) and entity loads are counted for the innermost logical query running on the current thread, whichever
+ * instrumentation runs it, and are not recorded at all outside of logical queries. When a nested logical query ends,
+ * its statement and entity load counts are added to the enclosing logical query, so the statistics of a logical query
+ * include those of the logical queries nested in it. Work done by a logical query on other threads is not attributed
+ * to it.
+ * <p>
+ * The rows of a logical query are the rows of its result, as materialized by the query: the size of the returned
+ * collection or map, 0 or 1 for an Optional or null, and 1 for any other result. They are not the JDBC rows, which
+ * could only be counted by intercepting each ResultSet call.
+ * <p>
+ * An EntityManagerFactory must be hooked up twice: the properties returned by {@link #entityManagerFactoryProperties()}
+ * must be passed when creating the EntityManagerFactory, and the created EntityManagerFactory must be passed to
+ * {@link #instrument(EntityManagerFactory)}. The hooks do not refer to any instrumentation, so an EntityManagerFactory
+ * can be used by several instrumentations. For example:
+ * <pre>{@code
+ * QueryInstrumentation instrumentation = new QueryInstrumentation(Duration.ofMillis(100));
+ * EntityManagerFactory emf = instrumentation.instrument(
+ *         QuotesEntityManagerFactoryCreator.createEntityManagerFactory(instrumentation.entityManagerFactoryProperties()));
+ * }</pre>
+ * <p>
+ * Logical queries taking at least the slow query threshold are logged (as warning) to the System.Logger named
+ * after this class. Statistics can be inspected at any time with {@link #snapshot()}.
+ * <p>
+ * The per-statement cost is a Hibernate session event callback with two System.nanoTime calls, so the instrumentation
+ * can be left on in production. See "QueryInstrumentationBenchmark" in module "benchmarks" for its overhead.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QueryInstrumentation {
+
+    public static final Duration DEFAULT_SLOW_QUERY_THRESHOLD = Duration.ofMillis(100);
+
+    private static final System.Logger LOGGER = System.getLogger(QueryInstrumentation.class.getName());
+
+    /**
+     * The running logical query on a thread. Only accessed by that thread, so plain counters suffice.
+     */
+    private static final class Scope {
+
+        private final String queryName;
+        private final Scope outerScope;
+        private long statementCount = 0;
+        private long statementNanos = 0;
+        private long rowCount = 0;
+        private long entityLoadCount = 0;
+
+        private Scope(String queryName, Scope outerScope) {
+            this.queryName = queryName;
+            this.outerScope = outerScope;
+        }
+    }
+
+    /**
+     * The accumulated statistics of one logical query, updated concurrently.
+     */
+    private static final class QueryRecorder {
+
+        private final LongAdder executionCount = new LongAdder();
+        private final LongAdder slowExecutionCount = new LongAdder();
+        private final LongAdder statementCount = new LongAdder();
+        private final LongAdder statementNanos = new LongAdder();
+        private final LongAdder rowCount = new LongAdder();
+        private final LongAdder entityLoadCount = new LongAdder();
+        private final LongAccumulator maxStatementCount = new LongAccumulator(Math::max, 0L);
+        private final LongAccumulator maxRowCount = new LongAccumulator(Math::max, 0L);
+        private final LongAccumulator maxEntityLoadCount = new LongAccumulator(Math::max, 0L);
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        private void record(Scope scope, long latencyNanos, boolean slow) {
+            executionCount.increment();
+            if (slow) {
+                slowExecutionCount.increment();
+            }
+            statementCount.add(scope.statementCount);
+            statementNanos.add(scope.statementNanos);
+            rowCount.add(scope.rowCount);
+            entityLoadCount.add(scope.entityLoadCount);
+            maxStatementCount.accumulate(scope.statementCount);
+            maxRowCount.accumulate(scope.rowCount);
+            maxEntityLoadCount.accumulate(scope.entityLoadCount);
+            latencies.record(latencyNanos);
+        }
+
+        private QueryStatistics snapshot(String queryName) {
+            return new QueryStatistics(
+                    queryName,
+                    executionCount.sum(),
+                    slowExecutionCount.sum(),
+                    statementCount.sum(),
+                    statementNanos.sum(),
+                    rowCount.sum(),
+                    entityLoadCount.sum(),
+                    maxStatementCount.get(),
+                    maxRowCount.get(),
+                    maxEntityLoadCount.get(),
+                    latencies.snapshot()
+            );
+        }
+    }
+
+    /**
+     * The entity load listener registered (once) with each instrumented EntityManagerFactory.
+     */
+    private static final class EntityLoadListener implements PostLoadEventListener {
+
+        @Override
+        public void onPostLoad(PostLoadEvent event) {
+            entityLoaded();
+        }
+    }
+
+    // Shared by all instrumentations, so that the Hibernate hooks need not know which instrumentation is running
+    private static final ThreadLocal<Scope> CURRENT_SCOPE = new ThreadLocal<>();
+
+    private final Duration slowQueryThreshold;
+    private final long slowQueryThresholdNanos;
+
+    private final ConcurrentMap<String, QueryRecorder> queryRecorders = new ConcurrentHashMap<>();
+
+    public QueryInstrumentation(Duration slowQueryThreshold) {
+        Preconditions.checkArgument(!slowQueryThreshold.isNegative());
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    public QueryInstrumentation() {
+        this(DEFAULT_SLOW_QUERY_THRESHOLD);
+    }
+
+    public Duration getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    /**
+     * Returns the (Hibernate-specific) properties to pass when creating the EntityManagerFactory, so that each
+     * session gets a {@link StatementTimingListener}, counting and timing the JDBC statement executions.
+     */
+    public ImmutableMap<String, Object> entityManagerFactoryProperties() {
+        return ImmutableMap.of("hibernate.session.events.auto", StatementTimingListener.class.getName());
+    }
+
+    /**
+     * Registers the entity load listener with the given EntityManagerFactory, unless already done before (by any
+     * instrumentation), and returns that same EntityManagerFactory.
+     */
+    public EntityManagerFactory instrument(EntityManagerFactory entityManagerFactory) {
+        // Hibernate-specific
+        EventListenerRegistry eventListenerRegistry =
+                entityManagerFactory.unwrap(SessionFactoryImplementor.class).getEventListenerRegistry();
+        synchronized (eventListenerRegistry) {
+            EventListenerGroup<PostLoadEventListener> listenerGroup =
+                    eventListenerRegistry.getEventListenerGroup(EventType.POST_LOAD);
+            boolean alreadyRegistered = Streams.stream(listenerGroup.listeners())
+                    .anyMatch(listener -> listener instanceof EntityLoadListener);
+            if (!alreadyRegistered) {
+                listenerGroup.appendListener(new EntityLoadListener());
+            }
+        }
+        return entityManagerFactory;
+    }
+
+    /**
+     * Runs the given logical query on the current thread, recording its statistics under the given name.
+     */
+    public <R> R measure(String queryName, Supplier<R> query) {
+        Scope scope = new Scope(queryName, CURRENT_SCOPE.get());
+        CURRENT_SCOPE.set(scope);
+        long start = System.nanoTime();
+        try {
+            R result = query.get();
+            scope.rowCount = rowCount(result);
+            return result;
+        } finally {
+            long latencyNanos = System.nanoTime() - start;
+            restoreOuterScope(scope);
+            record(scope, latencyNanos);
+        }
+    }
+
+    /**
+     * Runs the given logical query in a new transaction of the given EntityManagerFactory, recording its
+     * statistics under the given name.
+     */
+    public <R> R callInTransaction(
+            EntityManagerFactory entityManagerFactory,
+            String queryName,
+            Function<EntityManager, R> query
+    ) {
+        return measure(queryName, () -> entityManagerFactory.callInTransaction(query));
+    }
+
+    /**
+     * Returns the statistics of all logical queries run so far, ordered by query name.
+     */
+    public ImmutableSortedMap<String, QueryStatistics> snapshot() {
+        return queryRecorders.entrySet().stream()
+                .collect(ImmutableSortedMap.toImmutableSortedMap(
+                        String::compareTo,
+                        Map.Entry::getKey,
+                        kv -> kv.getValue().snapshot(kv.getKey())));
+    }
+
+    static void statementExecuted(long nanos) {
+        Scope scope = CURRENT_SCOPE.get();
+        if (scope != null) {
+            scope.statementCount += 1;
+            scope.statementNanos += nanos;
+        }
+    }
+
+    static void entityLoaded() {
+        Scope scope = CURRENT_SCOPE.get();
+        if (scope != null) {
+            scope.entityLoadCount += 1;
+        }
+    }
+
+    private void restoreOuterScope(Scope scope) {
+        Scope outerScope = scope.outerScope;
+        if (outerScope == null) {
+            CURRENT_SCOPE.remove();
+        } else {
+            // The work of the nested logical query is part of the work of the enclosing one, but its result is not
+            outerScope.statementCount += scope.statementCount;
+            outerScope.statementNanos += scope.statementNanos;
+            outerScope.entityLoadCount += scope.entityLoadCount;
+            CURRENT_SCOPE.set(outerScope);
+        }
+    }
+
+    private void record(Scope scope, long latencyNanos) {
+        boolean slow = latencyNanos >= slowQueryThresholdNanos;
+        queryRecorders.computeIfAbsent(scope.queryName, name -> new QueryRecorder()).record(scope, latencyNanos, slow);
+
+        if (slow) {
+            LOGGER.log(
+                    System.Logger.Level.WARNING,
+                    "Slow query {0}: {1} ms, {2} SQL statements taking {3} ms, {4} rows, {5} entities loaded",
+                    scope.queryName,
+                    String.format("%.1f", latencyNanos / 1_000_000.0),
+                    scope.statementCount,
+                    String.format("%.1f", scope.statementNanos / 1_000_000.0),
+                    scope.rowCount,
+                    scope.entityLoadCount
+            );
+        }
+    }
+
+    private static long rowCount(Object result) {
+        return switch (result) {
+            case null -> 0L;
+            case Collection<?> collection -> collection.size();
+            case Map<?, ?> map -> map.size();
+            case Optional<?> optional -> optional.isPresent() ? 1L : 0L;
+            default -> 1L;
+        };
+    }
+}
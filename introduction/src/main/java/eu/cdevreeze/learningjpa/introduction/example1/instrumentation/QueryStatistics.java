@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.instrumentation;
+
+/**
+ * Snapshot of the statistics of one logical query, as recorded by a {@link QueryInstrumentation}.
+ * The counts (and the time spent executing SQL statements) are totals over all executions of the logical query,
+ * and the maxima are per execution.
+ *
+ * @author Chris de Vreeze
+ */
+public record QueryStatistics(
+        String queryName,
+        long executionCount,
+        long slowExecutionCount,
+        long statementCount,
+        long statementNanos,
+        long rowCount,
+        long entityLoadCount,
+        long maxStatementCount,
+        long maxRowCount,
+        long maxEntityLoadCount,
+        LatencyHistogram.Snapshot latencies
+) {
+
+    public double statementsPerExecution() {
+        return perExecution(statementCount);
+    }
+
+    public double statementMillisPerExecution() {
+        return perExecution(statementNanos) / 1_000_000.0;
+    }
+
+    public double rowsPerExecution() {
+        return perExecution(rowCount);
+    }
+
+    public double entityLoadsPerExecution() {
+        return perExecution(entityLoadCount);
+    }
+
+    private double perExecution(long count) {
+        return (executionCount == 0) ? 0.0 : count / (double) executionCount;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.instrumentation;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Hibernate SessionEventListener counting and timing the JDBC statement executions of a session, on behalf of the
+ * logical query running on the current thread (see {@link QueryInstrumentation}). A JDBC batch counts as one statement.
+ * <p>
+ * Hibernate creates one instance per session (see {@link QueryInstrumentation#entityManagerFactoryProperties()}),
+ * using the public no-arg constructor, which is the only reason this class is public. Like a session, an instance
+ * is used by one thread at a time.
+ *
+ * @author Chris de Vreeze
+ */
+public final class StatementTimingListener implements SessionEventListener {
+
+    private long executionStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        QueryInstrumentation.statementExecuted(System.nanoTime() - executionStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        QueryInstrumentation.statementExecuted(System.nanoTime() - executionStart);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.search;
+
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.function.Supplier;
+
+/**
+ * Hibernate event listener keeping a {@link QuoteTextIndex} in sync with the Quote table. It is only called after
+ * successful commits, so the index never contains uncommitted (or rolled back) quote texts. The index is obtained
+ * anew for each event, so that the events end up in whichever index is current at commit time.
+ * <p>
+ * Hibernate-specific. Note that bulk JPQL updates and deletes and native SQL bypass these events.
+ *
+ * @author Chris de Vreeze
+ */
+final class QuoteIndexingListener
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final Supplier<QuoteTextIndex> currentIndex;
+
+    QuoteIndexingListener(Supplier<QuoteTextIndex> currentIndex) {
+        this.currentIndex = currentIndex;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass().equals(Quote.class);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Quote quote) {
+            currentIndex.get().index((Long) event.getId(), quote.getQuoteText());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Quote quote) {
+            currentIndex.get().index((Long) event.getId(), quote.getQuoteText());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Quote) {
+            currentIndex.get().remove((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing to undo, since the index is only updated after successful commits
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing to undo, since the index is only updated after successful commits
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing to undo, since the index is only updated after successful commits
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.search;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Streams;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.ModelConversionContext;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over quote texts, backed by a {@link QuoteTextIndex} that is kept in sync with the Quote table
+ * through Hibernate post-commit event listeners. The index is only used to find and rank the IDs of matching quotes,
+ * after which only those quotes are queried from the database, in one query. So unlike filtering all quotes in Java,
+ * the cost of a search does not grow with the total number of quotes.
+ * <p>
+ * Creating a QuoteSearchService registers its listeners with the EntityManagerFactory, and builds the index from
+ * the quotes in the database. Changes made by bulk JPQL statements or native SQL are not seen by the listeners, so
+ * after such changes the index must be rebuilt with {@link #rebuildIndex()}. A rebuild fills a new index, and only
+ * then replaces the current one by it, so concurrent searches never see an empty or partially filled index.
+ * <p>
+ * Hibernate offers no way to remove event listeners, so the listeners live as long as the EntityManagerFactory.
+ * Hence, at most one QuoteSearchService can be created per EntityManagerFactory, and it should be shared by its users.
+ * Creating another one fails, instead of silently adding another set of listeners and another index to keep up to date.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QuoteSearchService {
+
+    public static final int DEFAULT_MAX_RESULTS = 10;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private volatile QuoteTextIndex index;
+
+    public QuoteSearchService(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.index = new QuoteTextIndex();
+
+        // Hibernate-specific
+        QuoteIndexingListener listener = new QuoteIndexingListener(this::getIndex);
+        EventListenerRegistry eventListenerRegistry =
+                entityManagerFactory.unwrap(SessionFactoryImplementor.class).getEventListenerRegistry();
+        synchronized (eventListenerRegistry) {
+            boolean alreadyRegistered =
+                    Streams.stream(eventListenerRegistry.getEventListenerGroup(EventType.POST_COMMIT_INSERT).listeners())
+                            .anyMatch(registeredListener -> registeredListener instanceof QuoteIndexingListener);
+            Preconditions.checkState(
+                    !alreadyRegistered,
+                    "There already is a QuoteSearchService for this EntityManagerFactory");
+
+            eventListenerRegistry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+            eventListenerRegistry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+            eventListenerRegistry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        }
+
+        rebuildIndex();
+    }
+
+    public EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    /**
+     * Returns the current index. After a rebuild, this is another index than before.
+     */
+    public QuoteTextIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Rebuilds the index from the quotes in the database, in a new index that replaces the current one when done.
+     * Quotes written concurrently may or may not be seen, since until the replacement they are indexed in the
+     * current index only.
+     */
+    public void rebuildIndex() {
+        QuoteTextIndex newIndex = new QuoteTextIndex();
+        entityManagerFactory.runInTransaction(em -> {
+            try (Stream<Tuple> quoteTexts = em.createQuery("select qt.id, qt.quoteText from Quote qt", Tuple.class)
+                    .getResultStream()) {
+                quoteTexts.forEach(tuple -> newIndex.index(tuple.get(0, Long.class), tuple.get(1, String.class)));
+            }
+        });
+        index = newIndex;
+    }
+
+    /**
+     * Returns the best matching quotes (at most maxResults) containing at least one of the keywords in the query,
+     * best match first.
+     */
+    public ImmutableList<Model.Quote> findQuotesByKeywords(String query, int maxResults) {
+        return findQuotes(index.searchKeywords(query, maxResults));
+    }
+
+    public ImmutableList<Model.Quote> findQuotesByKeywords(String query) {
+        return findQuotesByKeywords(query, DEFAULT_MAX_RESULTS);
+    }
+
+    /**
+     * Returns the best matching quotes (at most maxResults) containing the given phrase, best match first.
+     */
+    public ImmutableList<Model.Quote> findQuotesByPhrase(String phrase, int maxResults) {
+        return findQuotes(index.searchPhrase(phrase, maxResults));
+    }
+
+    public ImmutableList<Model.Quote> findQuotesByPhrase(String phrase) {
+        return findQuotesByPhrase(phrase, DEFAULT_MAX_RESULTS);
+    }
+
+    private ImmutableList<Model.Quote> findQuotes(ImmutableList<QuoteTextIndex.SearchHit> hits) {
+        if (hits.isEmpty()) {
+            return ImmutableList.of();
+        }
+        List<Long> quoteIds = hits.stream().map(QuoteTextIndex.SearchHit::quoteId).toList();
+
+        ImmutableMap<Long, Model.Quote> quotesById =
+                entityManagerFactory.callInTransaction(em -> findQuotesByIds(em, quoteIds));
+
+        // Restoring the ranking. Quotes deleted after the index lookup are left out.
+        return quoteIds.stream()
+                .map(quotesById::get)
+                .filter(Objects::nonNull)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private static ImmutableMap<Long, Model.Quote> findQuotesByIds(EntityManager entityManager, List<Long> quoteIds) {
+        String ql = """
+                select qt from Quote qt
+                join fetch qt.attributedTo
+                left join fetch qt.subjects
+                where qt.id in :quoteIds""";
+        ModelConversionContext conversionContext = new ModelConversionContext();
+        return entityManager.createQuery(ql, Quote.class)
+                .setParameter("quoteIds", quoteIds)
+                .getResultList()
+                .stream()
+                .collect(ImmutableMap.toImmutableMap(Quote::getId, conversionContext::toModel));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.search;
+
+import com.google.common.collect.ImmutableList;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Analyzer turning quote texts and search queries into terms. A term is a maximal sequence of letters and digits,
+ * normalized to NFKC and lower case. Both the indexed texts and the queries are analyzed the same way, so that
+ * for example "Truth" in a query matches "truth." in a quote.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QuoteTextAnalyzer {
+
+    private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private QuoteTextAnalyzer() {
+    }
+
+    /**
+     * Returns the terms of the given text, in order of occurrence, including duplicates.
+     */
+    public static ImmutableList<String> analyze(String text) {
+        String normalizedText = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD_CHARACTERS.split(normalizedText))
+                .filter(term -> !term.isEmpty())
+                .collect(ImmutableList.toImmutableList());
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.search;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Ordering;
+import com.google.common.primitives.Ints;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index of quote texts, mapping each term (see {@link QuoteTextAnalyzer}) to the quotes containing
+ * it, along with the positions of the term in those quotes. It supports keyword queries (matching quotes containing
+ * any of the keywords) and phrase queries (matching quotes containing all terms of the phrase consecutively). Matches
+ * are ranked by the Okapi BM25 score, so quotes containing rare query terms, or containing query terms more often
+ * relative to their length, rank higher.
+ * <p>
+ * The cost of a query depends on the number of quotes containing the query terms, and not on the total number of
+ * indexed quotes. The top matches are selected in linear time, without sorting all matches.
+ * <p>
+ * This class is thread-safe. Queries may run concurrently, whereas updates are exclusive.
+ *
+ * @author Chris de Vreeze
+ */
+public final class QuoteTextIndex {
+
+    /**
+     * The BM25 term frequency saturation parameter.
+     */
+    public static final double K1 = 1.2;
+
+    /**
+     * The BM25 quote length normalization parameter.
+     */
+    public static final double B = 0.75;
+
+    public record SearchHit(long quoteId, double score) {
+    }
+
+    private static final Comparator<SearchHit> RANKING =
+            Comparator.comparingDouble(SearchHit::score).reversed().thenComparingLong(SearchHit::quoteId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Term -> quote ID -> sorted positions of the term in the quote
+    private final Map<String, Map<Long, int[]>> postings = new HashMap<>();
+    // Quote ID -> distinct terms of the quote, needed to remove the quote from the postings
+    private final Map<Long, ImmutableSet<String>> quoteTerms = new HashMap<>();
+    // Quote ID -> number of terms in the quote
+    private final Map<Long, Integer> quoteLengths = new HashMap<>();
+    private long totalQuoteLength = 0;
+
+    /**
+     * Adds the given quote to the index, replacing the quote with the same ID if it has been indexed before.
+     */
+    public void index(long quoteId, String quoteText) {
+        ImmutableList<String> terms = QuoteTextAnalyzer.analyze(quoteText);
+
+        Map<String, List<Integer>> positionsByTerm = new HashMap<>();
+        for (int i = 0; i < terms.size(); i++) {
+            positionsByTerm.computeIfAbsent(terms.get(i), t -> new ArrayList<>()).add(i);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeQuote(quoteId);
+
+            positionsByTerm.forEach((term, positions) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(quoteId, Ints.toArray(positions)));
+            quoteTerms.put(quoteId, ImmutableSet.copyOf(positionsByTerm.keySet()));
+            quoteLengths.put(quoteId, terms.size());
+            totalQuoteLength += terms.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the quote with the given ID from the index, if it has been indexed.
+     */
+    public void remove(long quoteId) {
+        lock.writeLock().lock();
+        try {
+            removeQuote(quoteId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            quoteTerms.clear();
+            quoteLengths.clear();
+            totalQuoteLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed quotes.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return quoteLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best matches (at most maxResults) of the quotes containing at least one of the keywords in the query,
+     * best match first.
+     */
+    public ImmutableList<SearchHit> searchKeywords(String query, int maxResults) {
+        Preconditions.checkArgument(maxResults >= 0);
+        ImmutableSet<String> terms = ImmutableSet.copyOf(QuoteTextAnalyzer.analyze(query));
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, int[]> termPostings = postings.getOrDefault(term, Map.of());
+                double idf = idf(termPostings.size());
+                termPostings.forEach((quoteId, positions) ->
+                        scores.merge(quoteId, idf * termFrequencyWeight(positions.length, quoteId), Double::sum));
+            }
+            return topHits(scores, maxResults);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best matches (at most maxResults) of the quotes containing all terms of the given phrase
+     * consecutively, best match first. The number of occurrences of the phrase counts as term frequency.
+     */
+    public ImmutableList<SearchHit> searchPhrase(String phrase, int maxResults) {
+        Preconditions.checkArgument(maxResults >= 0);
+        ImmutableList<String> terms = QuoteTextAnalyzer.analyze(phrase);
+        if (terms.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, int[]>> termPostings = terms.stream()
+                    .map(term -> postings.getOrDefault(term, Map.of()))
+                    .toList();
+            double idf = ImmutableSet.copyOf(terms).stream()
+                    .mapToDouble(term -> idf(postings.getOrDefault(term, Map.of()).size()))
+                    .sum();
+
+            // Only the quotes containing the rarest term of the phrase are candidates
+            Map<Long, int[]> rarestTermPostings =
+                    termPostings.stream().min(Comparator.comparingInt(Map::size)).orElseThrow();
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (long quoteId : rarestTermPostings.keySet()) {
+                int phraseFrequency = phraseFrequency(quoteId, termPostings);
+                if (phraseFrequency > 0) {
+                    scores.put(quoteId, idf * termFrequencyWeight(phraseFrequency, quoteId));
+                }
+            }
+            return topHits(scores, maxResults);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeQuote(long quoteId) {
+        ImmutableSet<String> terms = quoteTerms.remove(quoteId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, int[]> termPostings = postings.get(term);
+            termPostings.remove(quoteId);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalQuoteLength -= quoteLengths.remove(quoteId);
+    }
+
+    private static int phraseFrequency(long quoteId, List<Map<Long, int[]>> termPostings) {
+        List<int[]> positionsPerTerm = new ArrayList<>(termPostings.size());
+        for (Map<Long, int[]> postingsOfTerm : termPostings) {
+            int[] positions = postingsOfTerm.get(quoteId);
+            if (positions == null) {
+                return 0;
+            }
+            positionsPerTerm.add(positions);
+        }
+
+        int phraseFrequency = 0;
+        for (int start : positionsPerTerm.getFirst()) {
+            boolean matches = true;
+            for (int i = 1; i < positionsPerTerm.size() && matches; i++) {
+                matches = Arrays.binarySearch(positionsPerTerm.get(i), start + i) >= 0;
+            }
+            if (matches) {
+                phraseFrequency += 1;
+            }
+        }
+        return phraseFrequency;
+    }
+
+    private double idf(int documentFrequency) {
+        int quoteCount = quoteLengths.size();
+        return Math.log(1.0 + (quoteCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private double termFrequencyWeight(int termFrequency, long quoteId) {
+        double averageQuoteLength = totalQuoteLength / (double) quoteLengths.size();
+        double relativeQuoteLength = quoteLengths.get(quoteId) / averageQuoteLength;
+        return termFrequency * (K1 + 1) / (termFrequency + K1 * (1 - B + B * relativeQuoteLength));
+    }
+
+    private static ImmutableList<SearchHit> topHits(Map<Long, Double> scores, int maxResults) {
+        List<SearchHit> hits = scores.entrySet().stream()
+                .map(kv -> new SearchHit(kv.getKey(), kv.getValue()))
+                .toList();
+        return ImmutableList.copyOf(Ordering.from(RANKING).leastOf(hits, maxResults));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the query (and upsert) methods of {@link InsertAndQueryQuotes}, checking the results, and checking upper
+ * bounds on the number of SQL statements and loaded entities. Some tests insert data, so each test gets its own
+ * generated database.
+ *
+ * @author Chris de Vreeze
+ */
+public class InsertAndQueryQuotesTest {
+
+    private QuotesTestDatabase database;
+
+    @Before
+    public void setUp() {
+        database = QuotesTestDatabase.create();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testFindAllQuotes() {
+        ImmutableList<Model.Quote> quotes =
+                database.callInTransaction("findAllQuotes", InsertAndQueryQuotes::findAllQuotes);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        database.assertAtMost("findAllQuotes", 1, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testInsertQuotesThenFindAllQuotes() {
+        ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                "insertQuotesThenFindAllQuotes",
+                InsertAndQueryQuotes::insertQuotesThenFindAllQuotes);
+
+        assertEquals(database.getQuotes().size() + 2, quotes.size());
+        assertTrue(quotes.containsAll(database.getQuotes()));
+        // One set-based upsert query for the author and one for the subjects, at most one insert per new row
+        // (1 author, 2 subjects, 2 quotes and 2 quote subjects), and the final query
+        database.assertAtMost("insertQuotesThenFindAllQuotes", 2 + 7 + 1, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testInsertQuotesThenFindQuotesUsingJdbc() {
+        // The JDBC queries bypass Hibernate, so they must flush the pending inserts themselves
+        ImmutableList<ImmutableList<Model.Quote>> results = database.callInTransaction(
+                "insertQuotesThenFindQuotesUsingJdbc",
+                em -> {
+                    InsertAndQueryQuotes.persistSomeQuotes(em);
+                    return ImmutableList.of(
+                            QueryQuotes.findAllQuotesUsingJdbc(em),
+                            QueryQuotesByAuthor.findQuotesByAuthorUsingJdbc(em, "David Icke"),
+                            QueryQuotesBySubject.findQuotesBySubjectUsingJdbc(em, "tyranny"));
+                });
+        ImmutableList<Model.Quote> quotes = results.get(0);
+
+        assertEquals(database.getQuotes().size() + 2, quotes.size());
+        assertTrue(quotes.containsAll(database.getQuotes()));
+        assertEquals(
+                quotes.stream().filter(qt -> qt.attributedTo().name().equals("David Icke")).toList(),
+                results.get(1));
+        assertEquals(
+                quotes.stream()
+                        .filter(qt -> qt.subjects().stream().anyMatch(subj -> subj.subject().equals("tyranny")))
+                        .toList(),
+                results.get(2));
+    }
+
+    @Test
+    public void testUpsertExistingAuthorAndSubject() {
+        // Warming up the natural ID cache (which normally happens when inserting or querying the entities)
+        database.getEntityManagerFactory().runInTransaction(em -> {
+            InsertAndQueryQuotes.upsertAuthor("David Icke", em);
+            InsertAndQueryQuotes.upsertSubject("truth", em);
+        });
+
+        Author author = database.callInTransaction("upsertAuthorAndSubject", em -> {
+            InsertAndQueryQuotes.upsertSubject("truth", em);
+            return InsertAndQueryQuotes.upsertAuthor("David Icke", em);
+        });
+
+        assertEquals("David Icke", author.getName());
+        // Served by the 2nd level cache, without any JDBC round trip
+        database.assertAtMost("upsertAuthorAndSubject", 0, 2);
+    }
+}
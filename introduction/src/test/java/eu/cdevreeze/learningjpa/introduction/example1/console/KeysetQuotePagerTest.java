@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static eu.cdevreeze.learningjpa.introduction.example1.console.QuotesTestDatabase.hasRegisteredJdbcResources;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link KeysetQuotePager}, checking that streaming many pages in one EntityManager does not accumulate
+ * entities or JDBC resources.
+ *
+ * @author Chris de Vreeze
+ */
+public class KeysetQuotePagerTest {
+
+    private static final int PAGE_SIZE = 7;
+
+    private static QuotesTestDatabase database;
+
+    @BeforeClass
+    public static void setUp() {
+        database = QuotesTestDatabase.create();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testPagesReleaseEntitiesAndJdbcResources() {
+        int pageCount = database.getEntityManagerFactory().callInTransaction(em -> {
+            Iterator<ImmutableList<Model.Quote>> pages = new KeysetQuotePager(em, PAGE_SIZE, PAGE_SIZE).pages();
+            ImmutableList.Builder<Model.Quote> quotes = ImmutableList.builder();
+            int count = 0;
+            while (pages.hasNext()) {
+                quotes.addAll(pages.next());
+                count += 1;
+
+                // Hibernate-specific: an unclosed result stream would keep its statement and result set registered
+                assertFalse("JDBC resources left after page " + count, hasRegisteredJdbcResources(em));
+                assertTrue(em.unwrap(SharedSessionContractImplementor.class).getPersistenceContext().getEntitiesByKey().isEmpty());
+            }
+            assertEquals(database.getQuotes(), quotes.build());
+            return count;
+        });
+
+        assertTrue(pageCount >= database.getQuotes().size() / PAGE_SIZE);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the query methods of {@link QueryQuotesByAuthor}, for each author, checking the results, and checking upper
+ * bounds on the number of SQL statements and loaded entities, to catch fetch plan regressions (such as N+1 selects).
+ *
+ * @author Chris de Vreeze
+ */
+public class QueryQuotesByAuthorTest {
+
+    private static QuotesTestDatabase database;
+
+    @BeforeClass
+    public static void setUp() {
+        database = QuotesTestDatabase.create();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testFindQuotesByAuthor() {
+        checkQueryPerAuthor("findQuotesByAuthor", QueryQuotesByAuthor::findQuotesByAuthor);
+    }
+
+    @Test
+    public void testFindQuotesByAuthorUsingCriteriaApi() {
+        checkQueryPerAuthor("findQuotesByAuthorUsingCriteriaApi", QueryQuotesByAuthor::findQuotesByAuthorUsingCriteriaApi);
+    }
+
+    @Test
+    public void testFindQuotesByAuthorUsingEntityGraph() {
+        checkQueryPerAuthor("findQuotesByAuthorUsingEntityGraph", QueryQuotesByAuthor::findQuotesByAuthorUsingEntityGraph);
+    }
+
+    @Test
+    public void testFindQuotesByAuthorUsingCriteriaApiAndEntityGraph() {
+        checkQueryPerAuthor(
+                "findQuotesByAuthorUsingCriteriaApiAndEntityGraph",
+                QueryQuotesByAuthor::findQuotesByAuthorUsingCriteriaApiAndEntityGraph);
+    }
+
+    @Test
+    public void testFindQuotesByAuthorVerboselyUsingEntityGraph() {
+        checkQueryPerAuthor(
+                "findQuotesByAuthorVerboselyUsingEntityGraph",
+                QueryQuotesByAuthor::findQuotesByAuthorVerboselyUsingEntityGraph);
+    }
+
+    @Test
+    public void testFindQuotesByAuthorUsingNamedQuery() {
+        checkQueryPerAuthor("findQuotesByAuthorUsingNamedQuery", QueryQuotesByAuthor::findQuotesByAuthorUsingNamedQuery);
+    }
+
+    @Test
+    public void testFindQuotesByAuthorUsingNamedCriteriaQuery() {
+        checkQueryPerAuthor(
+                "findQuotesByAuthorUsingNamedCriteriaQuery",
+                QueryQuotesByAuthor::findQuotesByAuthorUsingNamedCriteriaQuery);
+    }
+
+    @Test
+    public void testFindQuotesByAuthorUsingProjection() {
+        for (String authorName : database.getAuthorNames()) {
+            String queryName = "findQuotesByAuthorUsingProjection:" + authorName;
+            ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                    queryName,
+                    em -> QueryQuotesByAuthor.findQuotesByAuthorUsingProjection(em, authorName));
+
+            // Ordered by quote ID, like the generated database
+            assertEquals(database.getQuotesByAuthor(authorName), quotes);
+            // No entities at all
+            database.assertAtMost(queryName, 1, 0);
+        }
+    }
+
+    @Test
+    public void testFindQuotesByAuthorUsingJdbc() {
+        for (String authorName : database.getAuthorNames()) {
+            String queryName = "findQuotesByAuthorUsingJdbc:" + authorName;
+            ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                    queryName,
+                    em -> QueryQuotesByAuthor.findQuotesByAuthorUsingJdbc(em, authorName));
+
+            assertEquals(database.getQuotesByAuthor(authorName), quotes);
+            database.assertAtMost(queryName, 1, 0);
+        }
+        assertEquals(
+                ImmutableList.of(),
+                database.callInTransaction(
+                        "findQuotesByAuthorUsingJdbc:unknown",
+                        em -> QueryQuotesByAuthor.findQuotesByAuthorUsingJdbc(em, "unknown author")));
+    }
+
+    @Test
+    public void testFindQuotesByUnknownAuthor() {
+        ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                "findQuotesByAuthor:unknown",
+                em -> QueryQuotesByAuthor.findQuotesByAuthor(em, "Unknown Author"));
+
+        assertEquals(ImmutableList.of(), quotes);
+        database.assertAtMost("findQuotesByAuthor:unknown", 1, 0);
+    }
+
+    private static void checkQueryPerAuthor(
+            String queryName,
+            BiFunction<EntityManager, String, ImmutableList<Model.Quote>> query
+    ) {
+        for (String authorName : database.getAuthorNames()) {
+            String queryNameForAuthor = queryName + ":" + authorName;
+            ImmutableList<Model.Quote> quotes =
+                    database.callInTransaction(queryNameForAuthor, em -> query.apply(em, authorName));
+
+            QuotesTestDatabase.assertSameQuotes(database.getQuotesByAuthor(authorName), quotes);
+            database.assertAtMost(queryNameForAuthor, 1, QuotesTestDatabase.entityCount(quotes));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.function.BiFunction;
+
+import static eu.cdevreeze.learningjpa.introduction.example1.console.QuotesTestDatabase.hasRegisteredJdbcResources;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests of the query methods of {@link QueryQuotesBySubject}, for each subject, checking the results, and checking upper
+ * bounds on the number of SQL statements and loaded entities, to catch fetch plan regressions (such as N+1 selects).
+ *
+ * @author Chris de Vreeze
+ */
+public class QueryQuotesBySubjectTest {
+
+    private static QuotesTestDatabase database;
+
+    @BeforeClass
+    public static void setUp() {
+        database = QuotesTestDatabase.create();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testFindQuotesBySubject() {
+        checkQueryPerSubject("findQuotesBySubject", QueryQuotesBySubject::findQuotesBySubject);
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingCriteriaApi() {
+        checkQueryPerSubject("findQuotesBySubjectUsingCriteriaApi", QueryQuotesBySubject::findQuotesBySubjectUsingCriteriaApi);
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingEntityGraph() {
+        checkQueryPerSubject("findQuotesBySubjectUsingEntityGraph", QueryQuotesBySubject::findQuotesBySubjectUsingEntityGraph);
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingCriteriaApiAndEntityGraph() {
+        checkQueryPerSubject(
+                "findQuotesBySubjectUsingCriteriaApiAndEntityGraph",
+                QueryQuotesBySubject::findQuotesBySubjectUsingCriteriaApiAndEntityGraph);
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingInAndUsingEntityGraph() {
+        checkQueryPerSubject(
+                "findQuotesBySubjectUsingInAndUsingEntityGraph",
+                QueryQuotesBySubject::findQuotesBySubjectUsingInAndUsingEntityGraph);
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingNamedQuery() {
+        checkQueryPerSubject("findQuotesBySubjectUsingNamedQuery", QueryQuotesBySubject::findQuotesBySubjectUsingNamedQuery);
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingNamedCriteriaQuery() {
+        checkQueryPerSubject(
+                "findQuotesBySubjectUsingNamedCriteriaQuery",
+                QueryQuotesBySubject::findQuotesBySubjectUsingNamedCriteriaQuery);
+    }
+
+    @Test
+    public void testFindQuotesBySubjectInTwoPhases() {
+        for (String subject : database.getSubjects()) {
+            String queryName = "findQuotesBySubjectInTwoPhases:" + subject;
+            ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                    queryName,
+                    em -> {
+                        ImmutableList<Model.Quote> result = QueryQuotesBySubject.findQuotesBySubjectInTwoPhases(em, subject);
+                        // Hibernate-specific: no JDBC resources left behind by the per-batch queries
+                        assertFalse(hasRegisteredJdbcResources(em));
+                        return result;
+                    });
+
+            // Ordered by quote ID, like the generated database
+            assertEquals(database.getQuotesBySubject(subject), quotes);
+            // One query for the IDs, and one per batch of IDs for the quotes
+            int batchCount = (quotes.size() + QueryQuotesBySubject.MAX_IN_LIST_SIZE - 1) / QueryQuotesBySubject.MAX_IN_LIST_SIZE;
+            database.assertAtMost(queryName, 1 + batchCount, QuotesTestDatabase.entityCount(quotes));
+        }
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingIdSubquery() {
+        for (String subject : database.getSubjects()) {
+            String queryName = "findQuotesBySubjectUsingIdSubquery:" + subject;
+            ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                    queryName,
+                    em -> QueryQuotesBySubject.findQuotesBySubjectUsingIdSubquery(em, subject));
+
+            assertEquals(database.getQuotesBySubject(subject), quotes);
+            database.assertAtMost(queryName, 1, QuotesTestDatabase.entityCount(quotes));
+        }
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingSubselectFetching() {
+        int batchSize = QuotesEntityManagerFactoryCreator.DEFAULT_BATCH_FETCH_SIZE;
+        for (String subject : database.getSubjects()) {
+            String queryName = "findQuotesBySubjectUsingSubselectFetching:" + subject;
+            ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                    queryName,
+                    em -> QueryQuotesBySubject.findQuotesBySubjectUsingSubselectFetching(em, subject));
+
+            assertEquals(database.getQuotesBySubject(subject), quotes);
+            // One query for the quotes, one for all their subjects, and one per batch of authors
+            long authorCount = quotes.stream().map(Model.Quote::attributedTo).distinct().count();
+            long authorBatchCount = (authorCount + batchSize - 1) / batchSize;
+            database.assertAtMost(queryName, 2 + authorBatchCount, QuotesTestDatabase.entityCount(quotes));
+        }
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingProjection() {
+        for (String subject : database.getSubjects()) {
+            String queryName = "findQuotesBySubjectUsingProjection:" + subject;
+            ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                    queryName,
+                    em -> QueryQuotesBySubject.findQuotesBySubjectUsingProjection(em, subject));
+
+            assertEquals(database.getQuotesBySubject(subject), quotes);
+            // No entities at all
+            database.assertAtMost(queryName, 1, 0);
+        }
+    }
+
+    @Test
+    public void testFindQuotesBySubjectUsingJdbc() {
+        for (String subject : database.getSubjects()) {
+            String queryName = "findQuotesBySubjectUsingJdbc:" + subject;
+            ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                    queryName,
+                    em -> QueryQuotesBySubject.findQuotesBySubjectUsingJdbc(em, subject));
+
+            // All subjects of the matching quotes, not just the one filtered on
+            assertEquals(database.getQuotesBySubject(subject), quotes);
+            database.assertAtMost(queryName, 1, 0);
+        }
+    }
+
+    @Test
+    public void testFindQuotesByUnknownSubject() {
+        ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                "findQuotesBySubject:unknown",
+                em -> QueryQuotesBySubject.findQuotesBySubject(em, "unknown subject"));
+
+        assertEquals(ImmutableList.of(), quotes);
+        database.assertAtMost("findQuotesBySubject:unknown", 1, 0);
+    }
+
+    private static void checkQueryPerSubject(
+            String queryName,
+            BiFunction<EntityManager, String, ImmutableList<Model.Quote>> query
+    ) {
+        for (String subject : database.getSubjects()) {
+            String queryNameForSubject = queryName + ":" + subject;
+            ImmutableList<Model.Quote> quotes =
+                    database.callInTransaction(queryNameForSubject, em -> query.apply(em, subject));
+
+            QuotesTestDatabase.assertSameQuotes(database.getQuotesBySubject(subject), quotes);
+            database.assertAtMost(queryNameForSubject, 1, QuotesTestDatabase.entityCount(quotes));
+        }
+    }
+}
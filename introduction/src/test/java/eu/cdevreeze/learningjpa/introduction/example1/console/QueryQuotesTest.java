@@ -0,0 +1,211 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the query methods of {@link QueryQuotes}, checking the results, and checking upper bounds on the number of
+ * SQL statements and loaded entities, to catch fetch plan regressions (such as N+1 selects).
+ *
+ * @author Chris de Vreeze
+ */
+public class QueryQuotesTest {
+
+    private static QuotesTestDatabase database;
+
+    @BeforeClass
+    public static void setUp() {
+        database = QuotesTestDatabase.create();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testFindAllQuotes() {
+        ImmutableList<Model.Quote> quotes =
+                database.callInTransaction("findAllQuotes", QueryQuotes::findAllQuotes);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        database.assertAtMost("findAllQuotes", 1, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testFindAllQuotesUsingCriteriaApi() {
+        ImmutableList<Model.Quote> quotes =
+                database.callInTransaction("findAllQuotesUsingCriteriaApi", QueryQuotes::findAllQuotesUsingCriteriaApi);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        database.assertAtMost("findAllQuotesUsingCriteriaApi", 1, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testFindAllQuotesOneByOne() {
+        ImmutableList<Model.Quote> quotes =
+                database.callInTransaction("findAllQuotesOneByOne", QueryQuotes::findAllQuotesOneByOne);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        // Deliberately N+1 (one query for the IDs, and one per quote), but it must not get any worse than that
+        database.assertAtMost("findAllQuotesOneByOne", 1 + quotes.size(), QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testFindAllQuotesUsingEntityGraph() {
+        ImmutableList<Model.Quote> quotes =
+                database.callInTransaction("findAllQuotesUsingEntityGraph", QueryQuotes::findAllQuotesUsingEntityGraph);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        database.assertAtMost("findAllQuotesUsingEntityGraph", 1, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testFindAllQuotesUsingCriteriaApiAndEntityGraph() {
+        ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                "findAllQuotesUsingCriteriaApiAndEntityGraph",
+                QueryQuotes::findAllQuotesUsingCriteriaApiAndEntityGraph);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        database.assertAtMost("findAllQuotesUsingCriteriaApiAndEntityGraph", 1, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testFindAllQuotesUsingNamedQuery() {
+        ImmutableList<Model.Quote> quotes =
+                database.callInTransaction("findAllQuotesUsingNamedQuery", QueryQuotes::findAllQuotesUsingNamedQuery);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        database.assertAtMost("findAllQuotesUsingNamedQuery", 1, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testFindAllQuotesUsingNamedCriteriaQuery() {
+        ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                "findAllQuotesUsingNamedCriteriaQuery",
+                QueryQuotes::findAllQuotesUsingNamedCriteriaQuery);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        database.assertAtMost("findAllQuotesUsingNamedCriteriaQuery", 1, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testFindAllQuotesUsingBatchFetching() {
+        ImmutableList<Model.Quote> quotes =
+                database.callInTransaction("findAllQuotesUsingBatchFetching", QueryQuotes::findAllQuotesUsingBatchFetching);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        // One query for the quotes, and one per batch of subject lists and per batch of authors
+        long maxStatementCount = 1 + batchCount(quotes.size()) + batchCount(database.getAuthorNames().size());
+        database.assertAtMost("findAllQuotesUsingBatchFetching", maxStatementCount, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testFindAllQuotesUsingSubselectFetching() {
+        ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                "findAllQuotesUsingSubselectFetching",
+                QueryQuotes::findAllQuotesUsingSubselectFetching);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+        // One query for the quotes, one for all their subjects, and one per batch of authors
+        long maxStatementCount = 2 + batchCount(database.getAuthorNames().size());
+        database.assertAtMost("findAllQuotesUsingSubselectFetching", maxStatementCount, QuotesTestDatabase.entityCount(quotes));
+    }
+
+    @Test
+    public void testFindAllQuotesUsingProjection() {
+        ImmutableList<Model.Quote> quotes =
+                database.callInTransaction("findAllQuotesUsingProjection", QueryQuotes::findAllQuotesUsingProjection);
+
+        assertEquals(database.getQuotes(), quotes);
+        // No entities at all
+        database.assertAtMost("findAllQuotesUsingProjection", 1, 0);
+    }
+
+    @Test
+    public void testFindAllQuotesUsingJdbc() {
+        ImmutableList<Model.Quote> quotes =
+                database.callInTransaction("findAllQuotesUsingJdbc", QueryQuotes::findAllQuotesUsingJdbc);
+
+        // Identical to the JPA query results, including the sharing of authors and subjects
+        assertEquals(database.getQuotes(), quotes);
+        assertEquals(
+                database.callInTransaction("findAllQuotesUsingProjection:jdbc", QueryQuotes::findAllQuotesUsingProjection),
+                quotes);
+        Set<Model.Author> authorInstances = Sets.newIdentityHashSet();
+        quotes.forEach(qt -> authorInstances.add(qt.attributedTo()));
+        assertEquals(quotes.stream().map(Model.Quote::attributedTo).distinct().count(), authorInstances.size());
+        // Bypassing Hibernate, so no entities (and no statements seen by Hibernate)
+        database.assertAtMost("findAllQuotesUsingJdbc", 1, 0);
+    }
+
+    @Test
+    public void testFindAllQuotesUsingKeysetPagination() {
+        int pageSize = 70;
+        ImmutableList<Model.Quote> quotes = database.callInTransaction(
+                "findAllQuotesUsingKeysetPagination",
+                em -> QueryQuotes.findAllQuotesUsingKeysetPagination(em, pageSize));
+
+        assertEquals(database.getQuotes(), quotes);
+        // Two queries per page (IDs and quotes), and possibly one more for a final empty page.
+        // The persistence context is cleared after each page, so authors and subjects may be loaded once per page.
+        int pageCount = (quotes.size() + pageSize - 1) / pageSize;
+        long maxEntityLoadCount = quotes.size() + (long) pageCount *
+                (database.getAuthorNames().size() + database.getSubjects().size());
+        database.assertAtMost("findAllQuotesUsingKeysetPagination", 2L * pageCount + 1, maxEntityLoadCount);
+    }
+
+    @Test
+    public void testFindAllQuotesInParallel() {
+        // The partitions are queried on other threads, so the thread-bound instrumentation does not see them,
+        // and Hibernate's own (SessionFactory-wide) statistics are used instead
+        Statistics statistics = database.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long statementCountBefore = statistics.getPrepareStatementCount();
+        long entityLoadCountBefore = statistics.getEntityLoadCount();
+
+        int concurrency = 3;
+        ImmutableList<Model.Quote> quotes = QueryQuotes.findAllQuotesInParallel(database.getEntityManagerFactory(), concurrency);
+
+        assertEquals(database.getQuotes(), quotes);
+        // One query for the ID range, and one per partition, each partition loading its own authors and subjects
+        int partitionCount = concurrency * ParallelQuotesReader.DEFAULT_PARTITIONS_PER_THREAD;
+        long statementCount = statistics.getPrepareStatementCount() - statementCountBefore;
+        long entityLoadCount = statistics.getEntityLoadCount() - entityLoadCountBefore;
+        long maxEntityLoadCount = quotes.size() + (long) partitionCount *
+                (database.getAuthorNames().size() + database.getSubjects().size());
+        assertTrue("SQL statements: " + statementCount, statementCount <= 1 + partitionCount);
+        assertTrue("Entity loads: " + entityLoadCount, entityLoadCount <= maxEntityLoadCount);
+    }
+
+    private static int batchCount(int size) {
+        int batchSize = QuotesEntityManagerFactoryCreator.DEFAULT_BATCH_FETCH_SIZE;
+        return (size + batchSize - 1) / batchSize;
+    }
+}
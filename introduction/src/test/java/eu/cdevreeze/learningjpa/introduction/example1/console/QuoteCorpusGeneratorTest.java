@@ -0,0 +1,91 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link QuoteCorpusGenerator}, checking determinism and the shape of the generated data.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuoteCorpusGeneratorTest {
+
+    private static final int QUOTE_COUNT = 20_000;
+
+    @Test
+    public void testGenerationIsDeterministic() {
+        QuoteCorpusGenerator generator = new QuoteCorpusGenerator(QuoteCorpusGenerator.Settings.defaults(42));
+        ImmutableList<Model.Quote> quotes = generator.generateQuotes(100).collect(ImmutableList.toImmutableList());
+
+        assertEquals(
+                quotes,
+                new QuoteCorpusGenerator(QuoteCorpusGenerator.Settings.defaults(42)).generateQuotes(100).toList());
+        assertEquals(quotes.get(57), generator.generateQuote(57));
+        assertNotEquals(
+                quotes,
+                new QuoteCorpusGenerator(QuoteCorpusGenerator.Settings.defaults(43)).generateQuotes(100).toList());
+    }
+
+    @Test
+    public void testAuthorsAndSubjectsAreSkewed() {
+        QuoteCorpusGenerator generator = new QuoteCorpusGenerator(QuoteCorpusGenerator.Settings.defaults(42));
+        ImmutableList<Model.Quote> quotes = generator.generateQuotes(QUOTE_COUNT).collect(ImmutableList.toImmutableList());
+
+        assertEquals(generator.getAuthors().size(), generator.getAuthors().stream().map(Model.Author::name).distinct().count());
+        assertEquals(generator.getSubjects().size(), generator.getSubjects().stream().map(Model.Subject::subject).distinct().count());
+
+        ImmutableMultiset<Model.Author> authors =
+                quotes.stream().map(Model.Quote::attributedTo).collect(ImmutableMultiset.toImmutableMultiset());
+        ImmutableMultiset<Model.Subject> subjects =
+                quotes.stream().flatMap(qt -> qt.subjects().stream()).collect(ImmutableMultiset.toImmutableMultiset());
+
+        // Zipf with exponent 1: the first author occurs about twice as often as the second one, etc.
+        int firstAuthorCount = authors.count(generator.getAuthors().get(0));
+        int secondAuthorCount = authors.count(generator.getAuthors().get(1));
+        assertTrue(firstAuthorCount > QUOTE_COUNT / 20);
+        assertTrue(firstAuthorCount > 1.5 * secondAuthorCount);
+        assertTrue(subjects.count(generator.getSubjects().get(0)) > 1.5 * subjects.count(generator.getSubjects().get(1)));
+        assertTrue(authors.elementSet().size() > 1_000);
+    }
+
+    @Test
+    public void testQuoteTextLengths() {
+        QuoteCorpusGenerator generator = new QuoteCorpusGenerator(QuoteCorpusGenerator.Settings.defaults(42));
+        ImmutableList<Integer> lengths = generator.generateQuotes(QUOTE_COUNT)
+                .map(qt -> qt.quoteText().length())
+                .sorted()
+                .collect(ImmutableList.toImmutableList());
+
+        assertTrue(lengths.getFirst() > 0);
+        assertTrue(lengths.getLast() <= QuoteCorpusGenerator.MAX_QUOTE_TEXT_LENGTH);
+        int medianLength = lengths.get(lengths.size() / 2);
+        assertTrue(medianLength > 100 && medianLength < 140);
+        // Long tail
+        assertTrue(lengths.getLast() > 5 * medianLength);
+
+        assertTrue(generator.generateQuotes(100).allMatch(qt -> qt.quoteText().endsWith(".")));
+        assertTrue(generator.generateQuotes(100).noneMatch(qt -> qt.quoteText().isBlank()));
+    }
+}
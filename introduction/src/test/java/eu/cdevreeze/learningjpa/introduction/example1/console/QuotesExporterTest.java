@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link QuotesExporter}, checking the escaping in both formats, and the export of all quotes in the database.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuotesExporterTest {
+
+    private static final Model.Quote TRICKY_QUOTE = new Model.Quote(
+            OptionalLong.of(7),
+            "He said \"no\", then left.\nBack\\slash\tand café",
+            new Model.Author(OptionalLong.of(3), "Doe, John"),
+            ImmutableSet.of(new Model.Subject(OptionalLong.of(5), "life")));
+
+    private static QuotesTestDatabase database;
+
+    @BeforeClass
+    public static void setUp() {
+        database = QuotesTestDatabase.create();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testNdjsonEscaping() {
+        String output = export(QuotesExporter.Format.NDJSON, Stream.of(TRICKY_QUOTE));
+
+        assertEquals(
+                "{\"id\":7,\"quoteText\":\"He said \\\"no\\\", then left.\\nBack\\\\slash\\tand café\"," +
+                        "\"author\":{\"id\":3,\"name\":\"Doe, John\"},\"subjects\":[{\"id\":5,\"subject\":\"life\"}]}\n",
+                output);
+    }
+
+    @Test
+    public void testCsvQuoting() {
+        String output = export(QuotesExporter.Format.CSV, Stream.of(TRICKY_QUOTE));
+
+        assertEquals(
+                "id,quote_text,author_id,author_name,subjects\n" +
+                        "7,\"He said \"\"no\"\", then left.\nBack\\slash\tand café\",3,\"Doe, John\",life\n",
+                output);
+    }
+
+    @Test
+    public void testCsvEscapingOfSubjectSeparator() {
+        Model.Quote quote = new Model.Quote(
+                OptionalLong.of(8),
+                "Either way.",
+                new Model.Author(OptionalLong.of(3), "Doe"),
+                ImmutableSet.of(
+                        new Model.Subject(OptionalLong.of(5), "this|that"),
+                        new Model.Subject(OptionalLong.of(6), "back\\slash"),
+                        new Model.Subject(OptionalLong.of(9), "life")));
+
+        String output = export(QuotesExporter.Format.CSV, Stream.of(quote));
+
+        assertEquals(
+                "id,quote_text,author_id,author_name,subjects\n" +
+                        "8,Either way.,3,Doe,this\\|that|back\\\\slash|life\n",
+                output);
+    }
+
+    @Test
+    public void testExportAllQuotes() {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        // Small pages and buffer, to cross page and buffer boundaries
+        QuotesExporter.ExportCounts counts = ReadOnlyTransactions.callInReadOnlyTransaction(
+                database.getEntityManagerFactory(),
+                em -> {
+                    try (Stream<Model.Quote> quotes = new KeysetQuotePager(em, 7, 7).streamAllQuotes()) {
+                        return new QuotesExporter(Channels.newChannel(bos), QuotesExporter.Format.NDJSON, 1024)
+                                .export(quotes);
+                    }
+                });
+
+        assertEquals(database.getQuotes().size(), counts.quoteCount());
+        assertEquals(bos.size(), counts.byteCount());
+        String output = bos.toString(StandardCharsets.UTF_8);
+        assertEquals(database.getQuotes().size(), output.lines().count());
+        assertTrue(output.lines().allMatch(line -> line.startsWith("{\"id\":") && line.endsWith("]}")));
+    }
+
+    private static String export(QuotesExporter.Format format, Stream<Model.Quote> quotes) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        QuotesExporter.ExportCounts counts = new QuotesExporter(Channels.newChannel(bos), format).export(quotes);
+        assertEquals(bos.size(), counts.byteCount());
+        return bos.toString(StandardCharsets.UTF_8);
+    }
+}
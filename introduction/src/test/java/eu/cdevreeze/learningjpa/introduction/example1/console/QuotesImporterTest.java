@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+import static eu.cdevreeze.learningjpa.introduction.example1.console.QuotesTestDatabase.hasRegisteredJdbcResources;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link QuotesImporter} and {@link QuoteJsonParser}, importing exported quotes back into the database.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuotesImporterTest {
+
+    private static QuotesTestDatabase database;
+
+    @BeforeClass
+    public static void setUp() {
+        database = QuotesTestDatabase.create();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testParseExportedQuote() {
+        Model.Quote quote = new Model.Quote(
+                OptionalLong.of(7),
+                "He said \"no\".\nBack\\slash\tand \u0001 café",
+                new Model.Author(OptionalLong.of(3), "Doe, John"),
+                ImmutableSet.of(new Model.Subject(OptionalLong.of(5), "life"), new Model.Subject(OptionalLong.of(6), "truth")));
+
+        String json = exportToNdjson(Stream.of(quote)).strip();
+
+        assertEquals(quote, new QuoteJsonParser().parseQuote(json));
+        assertEquals(
+                new Model.Quote(OptionalLong.empty(), "Hi", new Model.Author(OptionalLong.empty(), "Me"), ImmutableSet.of()),
+                new QuoteJsonParser().parseQuote(" { \"extra\" : [1, {\"a\": null}], \"author\": {\"name\": \"Me\"}, \"quoteText\": \"Hi\" } "));
+        assertThrows(IllegalArgumentException.class, () -> new QuoteJsonParser().parseQuote("{\"quoteText\": \"Hi\""));
+    }
+
+    @Test
+    public void testImportExportedQuotes() {
+        ImmutableList<Model.Quote> originalQuotes = database.getQuotes();
+        long maxOriginalId = originalQuotes.getLast().idOption().orElseThrow();
+        String ndjson = exportToNdjson(originalQuotes.stream());
+
+        // Small chunks, queues and transactions, to exercise the hand-offs between the stages
+        QuotesImporter importer = new QuotesImporter(database.getEntityManagerFactory(), new QuotesImporter.Settings(3, 16, 2, 10, 50));
+        QuotesImporter.ImportResult result = importer.importQuotes(new BufferedReader(new StringReader(ndjson)));
+
+        assertEquals(originalQuotes.size(), result.rowCounts().quoteCount());
+        assertEquals(0, result.rowCounts().authorCount());
+        assertEquals(0, result.rowCounts().subjectCount());
+        assertEquals(
+                originalQuotes.stream().mapToLong(qt -> qt.subjects().size()).sum(),
+                result.rowCounts().quoteSubjectCount());
+        assertTrue(result.stages().stream().allMatch(stage -> stage.itemCount() == originalQuotes.size()));
+
+        ImmutableList<Model.Quote> importedQuotes = database.getEntityManagerFactory().callInTransaction(QueryQuotes::findAllQuotes)
+                .stream()
+                .filter(qt -> qt.idOption().orElseThrow() > maxOriginalId)
+                .sorted(Comparator.comparingLong(qt -> qt.idOption().orElseThrow()))
+                .collect(ImmutableList.toImmutableList());
+
+        // Same quotes, with the same authors and subjects, in the same order, but with new quote IDs
+        assertEquals(
+                originalQuotes.stream().map(QuotesImporterTest::withoutQuoteId).toList(),
+                importedQuotes.stream().map(QuotesImporterTest::withoutQuoteId).toList());
+    }
+
+    @Test
+    public void testUpsertReleasesJdbcResources() {
+        database.getEntityManagerFactory().runInTransaction(em -> {
+            // Small IN lists, so that each upsert runs several queries
+            AuthorAndSubjectUpserter upserter = new AuthorAndSubjectUpserter(em, 3);
+
+            assertEquals(database.getAuthorNames().size(), upserter.upsertAuthors(database.getAuthorNames()).size());
+            assertEquals(database.getSubjects().size(), upserter.upsertSubjects(database.getSubjects()).size());
+            assertEquals(0L, upserter.getInsertedAuthorCount() + upserter.getInsertedSubjectCount());
+
+            // Hibernate-specific: an unclosed result stream would keep its statement and result set registered
+            assertFalse(hasRegisteredJdbcResources(em));
+            em.getTransaction().setRollbackOnly();
+        });
+    }
+
+    @Test
+    public void testImportFailsOnInvalidLine() {
+        String ndjson = exportToNdjson(database.getQuotes().stream().limit(5)) + "{\"quoteText\": 42}\n";
+        QuotesImporter importer = new QuotesImporter(database.getEntityManagerFactory(), QuotesImporter.Settings.defaults(2));
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> importer.importQuotes(new BufferedReader(new StringReader(ndjson))));
+        assertTrue(exception.getMessage().contains("line 6"));
+    }
+
+    private static String exportToNdjson(Stream<Model.Quote> quotes) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new QuotesExporter(Channels.newChannel(bos), QuotesExporter.Format.NDJSON).export(quotes);
+        return bos.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Model.Quote withoutQuoteId(Model.Quote quote) {
+        return new Model.Quote(OptionalLong.empty(), quote.quoteText(), quote.attributedTo(), quote.subjects());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.instrumentation.QueryInstrumentation;
+import eu.cdevreeze.learningjpa.introduction.example1.instrumentation.QueryStatistics;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test fixture holding an instrumented EntityManagerFactory (see {@link QueryInstrumentation}) for a generated quotes
+ * database of a given size. The database contains the sample quotes of {@link QuotesInserter}, and for the rest
+ * quotes generated by a {@link QuoteCorpusGenerator}, with few authors and subjects, because several tests query
+ * per author or subject. Queries run through {@link #callInTransaction(String, Function)} are recorded under the
+ * given query name, after which their SQL statement and entity load counts can be checked against upper bounds.
+ *
+ * @author Chris de Vreeze
+ */
+final class QuotesTestDatabase implements AutoCloseable {
+
+    static final int DEFAULT_QUOTE_COUNT = 300;
+
+    private static final QuoteCorpusGenerator.Settings CORPUS_SETTINGS =
+            new QuoteCorpusGenerator.Settings(42, 10, 1.0, 10, 1.0, 3, 120);
+
+    private final QueryInstrumentation instrumentation;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ImmutableList<Model.Quote> quotes;
+
+    private QuotesTestDatabase(
+            QueryInstrumentation instrumentation,
+            EntityManagerFactory entityManagerFactory,
+            ImmutableList<Model.Quote> quotes
+    ) {
+        this.instrumentation = instrumentation;
+        this.entityManagerFactory = entityManagerFactory;
+        this.quotes = quotes;
+    }
+
+    static QuotesTestDatabase create(int quoteCount) {
+        QueryInstrumentation instrumentation = new QueryInstrumentation();
+
+        Map<String, Object> properties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .putAll(BulkQuotesInserter.jdbcBatchingProperties(BulkQuotesInserter.DEFAULT_BATCH_SIZE))
+                .putAll(instrumentation.entityManagerFactoryProperties())
+                .putAll(QuotesCacheStatistics.entityManagerFactoryProperties())
+                .build();
+        EntityManagerFactory emf =
+                instrumentation.instrument(QuotesEntityManagerFactoryCreator.createEntityManagerFactory(properties));
+
+        ImmutableList<Model.Quote> sampleQuotes =
+                emf.callInTransaction(em ->
+                        new QuotesInserter(em).insertQuotes().stream().map(Quote::toModel).collect(ImmutableList.toImmutableList()));
+
+        int remainingQuoteCount = Math.max(0, quoteCount - sampleQuotes.size());
+        Iterable<Model.Quote> extraQuotes =
+                new QuoteCorpusGenerator(CORPUS_SETTINGS).generateQuotes(remainingQuoteCount).toList();
+        emf.runInTransaction(em -> new BulkQuotesInserter(em).insertQuotes(extraQuotes));
+
+        // Not run as a logical query, so not recorded by the instrumentation
+        ImmutableList<Model.Quote> quotes = emf.callInTransaction(QueryQuotes::findAllQuotes).stream()
+                .sorted(Comparator.comparingLong(qt -> qt.idOption().orElseThrow()))
+                .collect(ImmutableList.toImmutableList());
+        Preconditions.checkArgument(quotes.size() == Math.max(quoteCount, sampleQuotes.size()));
+
+        return new QuotesTestDatabase(instrumentation, emf, quotes);
+    }
+
+    static QuotesTestDatabase create() {
+        return create(DEFAULT_QUOTE_COUNT);
+    }
+
+    EntityManagerFactory getEntityManagerFactory() {
+        return entityManagerFactory;
+    }
+
+    /**
+     * Returns all quotes in the database, as they were right after generating it, ordered by ID.
+     */
+    ImmutableList<Model.Quote> getQuotes() {
+        return quotes;
+    }
+
+    ImmutableList<String> getAuthorNames() {
+        return quotes.stream()
+                .map(qt -> qt.attributedTo().name())
+                .distinct()
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    ImmutableList<String> getSubjects() {
+        return quotes.stream()
+                .flatMap(qt -> qt.subjects().stream())
+                .map(Model.Subject::subject)
+                .distinct()
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    ImmutableList<Model.Quote> getQuotesByAuthor(String authorName) {
+        return quotes.stream()
+                .filter(qt -> qt.attributedTo().name().equals(authorName))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    ImmutableList<Model.Quote> getQuotesBySubject(String subject) {
+        return quotes.stream()
+                .filter(qt -> qt.subjects().stream().anyMatch(subj -> subj.subject().equals(subject)))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    /**
+     * Runs the given query in a new transaction, recording its statistics under the given (unique) query name.
+     */
+    <R> R callInTransaction(String queryName, Function<EntityManager, R> query) {
+        return instrumentation.callInTransaction(entityManagerFactory, queryName, query);
+    }
+
+    /**
+     * Asserts that the logical query with the given name ran exactly once, executing at most the given number of
+     * SQL statements and loading at most the given number of entities.
+     */
+    void assertAtMost(String queryName, long maxStatementCount, long maxEntityLoadCount) {
+        QueryStatistics statistics = instrumentation.snapshot().get(queryName);
+        assertEquals("Execution count of " + queryName, 1L, statistics.executionCount());
+        assertTrue(
+                String.format(
+                        "%s executed %d SQL statements, expected at most %d",
+                        queryName, statistics.statementCount(), maxStatementCount),
+                statistics.statementCount() <= maxStatementCount);
+        assertTrue(
+                String.format(
+                        "%s loaded %d entities, expected at most %d",
+                        queryName, statistics.entityLoadCount(), maxEntityLoadCount),
+                statistics.entityLoadCount() <= maxEntityLoadCount);
+    }
+
+    /**
+     * Asserts that the given quotes are the expected ones, ignoring their order. The queries that do not
+     * order their results by quote ID can only be checked this way.
+     */
+    static void assertSameQuotes(Collection<Model.Quote> expectedQuotes, Collection<Model.Quote> quotes) {
+        assertEquals(expectedQuotes.size(), quotes.size());
+        assertEquals(ImmutableSet.copyOf(expectedQuotes), ImmutableSet.copyOf(quotes));
+    }
+
+    /**
+     * Returns the number of distinct entities (quotes, authors and subjects) making up the given quotes,
+     * which is the number of entities a single persistence context needs to load for them.
+     */
+    static long entityCount(Collection<Model.Quote> quotes) {
+        long authorCount = quotes.stream().map(Model.Quote::attributedTo).distinct().count();
+        long subjectCount = quotes.stream().flatMap(qt -> qt.subjects().stream()).distinct().count();
+        return quotes.size() + authorCount + subjectCount;
+    }
+
+    /**
+     * Returns true if the session of the given EntityManager still holds JDBC statements or result sets, which
+     * happens if a result stream has not been closed. Those are then only released when the EntityManager closes.
+     */
+    static boolean hasRegisteredJdbcResources(EntityManager entityManager) {
+        // Hibernate-specific
+        return entityManager.unwrap(SharedSessionContractImplementor.class)
+                .getJdbcCoordinator()
+                .getLogicalConnection()
+                .getResourceRegistry()
+                .hasRegisteredResources();
+    }
+
+    @Override
+    public void close() {
+        entityManagerFactory.close();
+    }
+}
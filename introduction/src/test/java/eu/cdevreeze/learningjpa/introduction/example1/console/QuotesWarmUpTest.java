@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableMap;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Subject;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of {@link QuotesWarmUp}, checking that the warm-up leaves no traces, other than a warmed-up
+ * EntityManagerFactory.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuotesWarmUpTest {
+
+    @Test
+    public void testWarmUpLeavesDatabaseAndStatisticsEmpty() {
+        Map<String, Object> properties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .putAll(QuotesCacheStatistics.entityManagerFactoryProperties())
+                .put(QuotesEntityManagerFactoryCreator.WARM_UP, true)
+                .build();
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(properties)) {
+            assertEquals(0L, emf.unwrap(SessionFactory.class).getStatistics().getQueryExecutionCount());
+
+            assertEquals(0L, countRows(emf, Quote.class));
+            assertEquals(0L, countRows(emf, Author.class));
+            assertEquals(0L, countRows(emf, Subject.class));
+        }
+    }
+
+    @Test
+    public void testWarmUpOfPopulatedDatabase() {
+        try (QuotesTestDatabase database = QuotesTestDatabase.create()) {
+            EntityManagerFactory emf = database.getEntityManagerFactory();
+            long authorCount = countRows(emf, Author.class);
+
+            QuotesWarmUp.warmUp(emf, 2);
+
+            // The warm-up runs read-only against the existing quotes
+            assertEquals(database.getQuotes().size(), countRows(emf, Quote.class));
+            assertEquals(authorCount, countRows(emf, Author.class));
+            assertEquals(database.getQuotes(), emf.callInTransaction(QueryQuotes::findAllQuotesUsingProjection));
+        }
+    }
+
+    private static long countRows(EntityManagerFactory emf, Class<?> entityClass) {
+        return emf.callInTransaction(em -> {
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+            return em.createQuery(cq.select(cb.count(cq.from(entityClass)))).getSingleResult();
+        });
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.console;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link ReadOnlyTransactions}, checking that queries still work, and that nothing is written.
+ *
+ * @author Chris de Vreeze
+ */
+public class ReadOnlyTransactionsTest {
+
+    private static QuotesTestDatabase database;
+
+    @BeforeClass
+    public static void setUp() {
+        database = QuotesTestDatabase.create();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testQueryInReadOnlyTransaction() {
+        ImmutableList<Model.Quote> quotes = ReadOnlyTransactions.callInReadOnlyTransaction(
+                database.getEntityManagerFactory(),
+                QueryQuotes::findAllQuotes);
+
+        QuotesTestDatabase.assertSameQuotes(database.getQuotes(), quotes);
+    }
+
+    @Test
+    public void testChangesAreNotFlushed() {
+        EntityManagerFactory emf = database.getEntityManagerFactory();
+        long quoteId = database.getQuotes().getFirst().idOption().orElseThrow();
+        String quoteText = database.getQuotes().getFirst().quoteText();
+
+        boolean readOnly = ReadOnlyTransactions.callInReadOnlyTransaction(emf, em -> {
+            Quote quote = em.find(Quote.class, quoteId);
+            quote.setQuoteText("Changed quote text");
+            return em.unwrap(Session.class).isReadOnly(quote);
+        });
+
+        assertTrue(readOnly);
+        assertEquals(quoteText, emf.callInTransaction(em -> em.find(Quote.class, quoteId).getQuoteText()));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.entity;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of {@link BlockAllocatingIdOptimizer}, against an in-memory sequence instead of a database sequence.
+ *
+ * @author Chris de Vreeze
+ */
+public class BlockAllocatingIdOptimizerTest {
+
+    private static final int BLOCK_SIZE = 50;
+
+    @Test
+    public void testSingleThreadedIdsAreConsecutive() {
+        BlockAllocatingIdOptimizer optimizer = new BlockAllocatingIdOptimizer(Long.class, BLOCK_SIZE);
+        CountingSequence sequence = new CountingSequence(1, BLOCK_SIZE);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3 * BLOCK_SIZE + 1; i++) {
+            ids.add((Long) optimizer.generate(sequence));
+        }
+
+        // Pooled-lo: sequence value N reserves the IDs from N up to N plus the block size
+        assertEquals(LongStream.rangeClosed(1, 3 * BLOCK_SIZE + 1).boxed().toList(), ids);
+        assertEquals(4, sequence.callCount.get());
+    }
+
+    @Test
+    public void testConcurrentRefillsReserveOneBlockAtATime() throws Exception {
+        int threadCount = 8;
+        int idsPerThread = 10 * BLOCK_SIZE;
+        BlockAllocatingIdOptimizer optimizer = new BlockAllocatingIdOptimizer(Long.class, BLOCK_SIZE);
+        CountingSequence sequence = new CountingSequence(1, BLOCK_SIZE);
+
+        Set<Long> ids = new HashSet<>();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threadCount)) {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    List<Long> threadIds = new ArrayList<>();
+                    for (int j = 0; j < idsPerThread; j++) {
+                        threadIds.add((Long) optimizer.generate(sequence));
+                    }
+                    return threadIds;
+                }));
+            }
+            start.countDown();
+            for (Future<List<Long>> result : results) {
+                ids.addAll(result.get());
+            }
+        }
+
+        // All IDs unique, and no reserved block wasted: exactly the IDs 1 up to and including the ID count
+        int idCount = threadCount * idsPerThread;
+        assertEquals(idCount, ids.size());
+        assertEquals(idCount, ids.stream().mapToLong(id -> id).max().orElseThrow());
+        assertEquals(idCount / BLOCK_SIZE, sequence.callCount.get());
+    }
+
+    /**
+     * Sequence starting at the given value, and incremented by the block size, like the database sequences
+     * used with this optimizer. The calls are slowed down a bit, as database round trips would be, so that
+     * threads run into exhausted blocks at the same time.
+     */
+    private static final class CountingSequence implements AccessCallback {
+
+        private final long startValue;
+        private final int increment;
+        private final AtomicInteger callCount = new AtomicInteger();
+
+        private CountingSequence(long startValue, int increment) {
+            this.startValue = startValue;
+            this.increment = increment;
+        }
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            int call = callCount.getAndIncrement();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class)
+                    .initialize(startValue + (long) call * increment);
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+}
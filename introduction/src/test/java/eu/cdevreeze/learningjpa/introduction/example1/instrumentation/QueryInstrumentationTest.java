@@ -0,0 +1,135 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.instrumentation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesEntityManagerFactoryCreator;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesInserter;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesPersistenceProfile;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the bookkeeping of {@link QueryInstrumentation}, mostly without any database.
+ *
+ * @author Chris de Vreeze
+ */
+public class QueryInstrumentationTest {
+
+    @Test
+    public void testNestedQueryCountsAreAddedToEnclosingQuery() {
+        QueryInstrumentation instrumentation = new QueryInstrumentation(Duration.ofMinutes(1));
+
+        instrumentation.measure("outer", () -> {
+            QueryInstrumentation.statementExecuted(100);
+            instrumentation.measure("inner", () -> {
+                QueryInstrumentation.statementExecuted(200);
+                QueryInstrumentation.entityLoaded();
+                return List.of("a", "b");
+            });
+            QueryInstrumentation.entityLoaded();
+            return Optional.of("c");
+        });
+        // Outside any logical query, so not recorded
+        QueryInstrumentation.statementExecuted(400);
+
+        ImmutableSortedMap<String, QueryStatistics> statistics = instrumentation.snapshot();
+
+        QueryStatistics inner = statistics.get("inner");
+        assertEquals(1, inner.statementCount());
+        assertEquals(200, inner.statementNanos());
+        assertEquals(2, inner.rowCount());
+        assertEquals(1, inner.entityLoadCount());
+
+        // The result rows of the nested query are not those of the enclosing one
+        QueryStatistics outer = statistics.get("outer");
+        assertEquals(2, outer.statementCount());
+        assertEquals(300, outer.statementNanos());
+        assertEquals(1, outer.rowCount());
+        assertEquals(2, outer.entityLoadCount());
+        assertEquals(2, outer.maxStatementCount());
+        assertEquals(1, outer.latencies().count());
+        assertEquals(1, inner.latencies().count());
+    }
+
+    @Test
+    public void testScopeIsRestoredAfterFailure() {
+        QueryInstrumentation instrumentation = new QueryInstrumentation(Duration.ofMinutes(1));
+
+        instrumentation.measure("outer", () -> {
+            try {
+                instrumentation.measure("failing", () -> {
+                    QueryInstrumentation.statementExecuted(1);
+                    throw new IllegalStateException("failure");
+                });
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+            QueryInstrumentation.statementExecuted(1);
+            return null;
+        });
+
+        assertEquals(1, instrumentation.snapshot().get("failing").statementCount());
+        assertEquals(0, instrumentation.snapshot().get("failing").rowCount());
+        assertEquals(2, instrumentation.snapshot().get("outer").statementCount());
+    }
+
+    @Test
+    public void testInstrumentingTwiceCountsEntityLoadsOnce() {
+        QueryInstrumentation instrumentation = new QueryInstrumentation(Duration.ofMinutes(1));
+        QueryInstrumentation otherInstrumentation = new QueryInstrumentation(Duration.ofMinutes(1));
+
+        Map<String, Object> properties = ImmutableMap.<String, Object>builder()
+                .putAll(QuotesPersistenceProfile.withoutSqlLogging())
+                .putAll(instrumentation.entityManagerFactoryProperties())
+                .build();
+
+        try (EntityManagerFactory emf = QuotesEntityManagerFactoryCreator.createEntityManagerFactory(properties)) {
+            instrumentation.instrument(emf);
+            instrumentation.instrument(emf);
+            otherInstrumentation.instrument(emf);
+
+            int quoteCount = emf.callInTransaction(em -> new QuotesInserter(em).insertQuotes().size());
+
+            List<Quote> quotes = instrumentation.callInTransaction(emf, "findAllQuotes", em ->
+                    em.createQuery("select qt from Quote qt", Quote.class).getResultList());
+            assertEquals(quoteCount, quotes.size());
+
+            // One query, and no lazy loading of authors or subjects
+            QueryStatistics statistics = instrumentation.snapshot().get("findAllQuotes");
+            assertEquals(1, statistics.statementCount());
+            assertEquals(quoteCount, statistics.rowCount());
+            assertEquals(quoteCount, statistics.entityLoadCount());
+
+            ImmutableList<Quote> quotesOfOtherInstrumentation =
+                    otherInstrumentation.callInTransaction(emf, "findAllQuotes", em ->
+                            ImmutableList.copyOf(em.createQuery("select qt from Quote qt", Quote.class).getResultList()));
+            assertEquals(quoteCount, quotesOfOtherInstrumentation.size());
+            assertEquals(quoteCount, otherInstrumentation.snapshot().get("findAllQuotes").entityLoadCount());
+        }
+    }
+}
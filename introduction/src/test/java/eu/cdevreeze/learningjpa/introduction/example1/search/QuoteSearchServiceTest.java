@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.search;
+
+import com.google.common.collect.ImmutableList;
+import eu.cdevreeze.learningjpa.introduction.example1.console.AuthorAndSubjectUpserter;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesEntityManagerFactoryCreator;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesInserter;
+import eu.cdevreeze.learningjpa.introduction.example1.console.QuotesPersistenceProfile;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Author;
+import eu.cdevreeze.learningjpa.introduction.example1.entity.Quote;
+import eu.cdevreeze.learningjpa.introduction.example1.model.Model;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link QuoteSearchService}, against an in-memory database.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuoteSearchServiceTest {
+
+    private static final int REBUILD_COUNT = 50;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    @Before
+    public void setUp() {
+        entityManagerFactory =
+                QuotesEntityManagerFactoryCreator.createEntityManagerFactory(QuotesPersistenceProfile.withoutSqlLogging());
+    }
+
+    @After
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Test
+    public void testOnlyOneServicePerEntityManagerFactory() {
+        QuoteSearchService searchService = new QuoteSearchService(entityManagerFactory);
+
+        assertThrows(IllegalStateException.class, () -> new QuoteSearchService(entityManagerFactory));
+
+        // The first service keeps its index up to date
+        assertTrue(searchService.findQuotesByKeywords("zebras").isEmpty());
+        entityManagerFactory.runInTransaction(em -> {
+            Author author = new AuthorAndSubjectUpserter(em).upsertAuthors(List.of("Anonymous")).get("Anonymous");
+            em.persist(new Quote("Zebras do not ask for permission.", author, List.of()));
+        });
+
+        ImmutableList<Model.Quote> quotes = searchService.findQuotesByKeywords("zebras");
+        assertEquals(1, quotes.size());
+        assertEquals("Zebras do not ask for permission.", quotes.getFirst().quoteText());
+    }
+
+    @Test
+    public void testSearchesDuringRebuildSeeCompleteIndex() throws Exception {
+        int quoteCount = entityManagerFactory.callInTransaction(em -> new QuotesInserter(em).insertQuotes().size());
+        QuoteSearchService searchService = new QuoteSearchService(entityManagerFactory);
+        int hitCount = searchService.getIndex().searchKeywords("afraid", quoteCount).size();
+        assertTrue(hitCount > 0);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<?> rebuilds = executor.submit(() -> {
+                for (int i = 0; i < REBUILD_COUNT; i++) {
+                    searchService.rebuildIndex();
+                }
+            });
+            while (!rebuilds.isDone()) {
+                QuoteTextIndex index = searchService.getIndex();
+                assertEquals(quoteCount, index.size());
+                assertEquals(hitCount, index.searchKeywords("afraid", quoteCount).size());
+            }
+            rebuilds.get();
+        }
+    }
+}
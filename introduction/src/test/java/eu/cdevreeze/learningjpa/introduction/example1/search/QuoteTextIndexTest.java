@@ -0,0 +1,93 @@
+/*
+ * Copyright 2025-2025 Chris de Vreeze
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.cdevreeze.learningjpa.introduction.example1.search;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the matching and ranking of {@link QuoteTextIndex}.
+ *
+ * @author Chris de Vreeze
+ */
+public class QuoteTextIndexTest {
+
+    private QuoteTextIndex index;
+
+    @Before
+    public void setUp() {
+        index = new QuoteTextIndex();
+        index.index(1L, "Liberty means responsibility. That is why most men dread it.");
+        index.index(2L, "The price of liberty is eternal vigilance.");
+        index.index(3L, "Eternal vigilance is the price of LIBERTY, and liberty is worth it.");
+        index.index(4L, "Truth is stranger than fiction.");
+    }
+
+    @Test
+    public void testKeywordSearch() {
+        List<Long> quoteIds = quoteIds(index.searchKeywords("liberty fiction", 10));
+
+        assertEquals(4, quoteIds.size());
+        // The rarest keyword ("fiction") weighs most
+        assertEquals(4L, (long) quoteIds.getFirst());
+        assertTrue(index.searchKeywords("tyranny", 10).isEmpty());
+    }
+
+    @Test
+    public void testKeywordSearchRanksByTermFrequency() {
+        List<Long> quoteIds = quoteIds(index.searchKeywords("Liberty", 10));
+
+        assertEquals(3, quoteIds.size());
+        assertEquals(3L, (long) quoteIds.getFirst());
+        assertEquals(ImmutableList.of(3L), quoteIds(index.searchKeywords("liberty", 1)));
+    }
+
+    @Test
+    public void testPhraseSearch() {
+        assertEquals(ImmutableList.of(2L, 3L), sorted(quoteIds(index.searchPhrase("price of liberty", 10))));
+        assertEquals(ImmutableList.of(2L, 3L), sorted(quoteIds(index.searchPhrase("eternal vigilance", 10))));
+        assertTrue(index.searchPhrase("liberty of price", 10).isEmpty());
+        assertTrue(index.searchPhrase("...", 10).isEmpty());
+    }
+
+    @Test
+    public void testReindexAndRemove() {
+        index.index(4L, "Liberty is stranger than fiction.");
+        assertEquals(4, index.size());
+        assertTrue(index.searchKeywords("truth", 10).isEmpty());
+        assertEquals(4, index.searchKeywords("liberty", 10).size());
+
+        index.remove(4L);
+        index.remove(5L);
+        assertEquals(3, index.size());
+        assertTrue(index.searchKeywords("fiction", 10).isEmpty());
+    }
+
+    private static List<Long> quoteIds(List<QuoteTextIndex.SearchHit> hits) {
+        return hits.stream().map(QuoteTextIndex.SearchHit::quoteId).toList();
+    }
+
+    private static List<Long> sorted(List<Long> quoteIds) {
+        return quoteIds.stream().sorted().toList();
+    }
+}